@@ -0,0 +1,291 @@
+package com.tut.tutorial;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *
+ * Chooses the order the tests of a pair run in by measuring how they perform.
+ *
+ * The bubble and box tests can only prove two entities apart. Which of them rejects more pairs for
+ * its cost depends on the meshes and how crowded the scene is, so pairs are grouped by the kind of
+ * shapes involved (primitive type, or mesh size bucket) and each group keeps its own figures. One call
+ * in {@link #EXPLORE_INTERVAL} runs and times every test, the exact one included, so each is measured
+ * on the same pairs. From these figures a plan is made for the group, running the filters cheapest per
+ * rejection first. Every other call just follows the plan.
+ *
+ * A filter could only be skipped without changing any answer if the exact test never found a pair
+ * touching that the filter proves apart. {@link HyperPlaneDetector} does not promise that: it only
+ * tries face normals as separating axes, so two rotated meshes whose boxes are apart can still be
+ * reported touching. For pairs of meshes every filter therefore stays in the plan and only its place
+ * changes, so the answer for a pair is the same whatever plan its group is following.
+ *
+ * Pairs involving a {@link Primitive} always go straight to the exact test, which for primitives is
+ * exact, costs less than any filter and has bounds the mesh filters do not know about. For pairs of meshes the
+ * collision mesh of each entity is chosen once per call, and the filters bound the same mesh the exact
+ * test runs on: a coarse level of detail is inflated past the render mesh, so filters sized to the
+ * render mesh could reject pairs the exact test would find touching.
+ *
+ * @author CAISBlogss
+ *
+ */
+public class AdaptiveDetector {
+
+	/**
+	 * The tests a plan is made from.
+	 */
+	public enum Stage {
+		BUBBLE,
+		BOX,
+		EXACT
+	}
+
+	/** One call in this many for each group runs and times every test */
+	public static final int EXPLORE_INTERVAL = 64;
+
+	/** The explored calls a group needs before its plan moves away from the default */
+	private static final int MIN_SAMPLES = 16;
+
+	private static final Stage[] DEFAULT_PLAN = new Stage[]{Stage.BUBBLE, Stage.BOX, Stage.EXACT};
+	private static final Stage[] EXACT_ONLY = new Stage[]{Stage.EXACT};
+	private static final Stage[] FILTERS = new Stage[]{Stage.BUBBLE, Stage.BOX};
+
+	private static final String[] MESH_SIZES = new String[]{"mesh<100", "mesh<1000", "mesh<10000", "mesh>=10000"};
+
+	private static Map<Integer, Profile> profiles = new ConcurrentHashMap<Integer, Profile>();
+
+
+	/**
+	 * Runs the current plan for the pair's group, returning the collision state as a boolean value.
+	 *
+	 * @param primary
+	 * 				- An entity to check collision. Order insignificant.
+	 * @param secondary
+	 *           	- Another entity to check collision. Order insignificant.
+	 *
+	 * @return
+	 * 				- The collision state: true if there is a collision, false if there is no collision.
+	 */
+	public static boolean doesCollide(Entity primary, Entity secondary){
+
+		boolean primitives = primary.getPrimitive() != null || secondary.getPrimitive() != null;
+		CollisionMesh primaryMesh = primitives ? null : primary.getCollisionMesh();
+		CollisionMesh secondaryMesh = primitives ? null : secondary.getCollisionMesh();
+
+		int a = shapeClass(primary, primaryMesh);
+		int b = shapeClass(secondary, secondaryMesh);
+		int key = (Math.min(a, b) * 16) + Math.max(a, b);
+
+		Profile profile = profiles.get(key);
+		if(profile == null){
+			profiles.putIfAbsent(key, new Profile(describe(Math.min(a, b)) + "/" + describe(Math.max(a, b))));
+			profile = profiles.get(key);
+		}
+
+		if(primitives){
+			profile.plan = EXACT_ONLY;
+			return PrimitiveDetector.doesCollide(primary, secondary);
+		}
+
+		if(profile.calls.getAndIncrement() % EXPLORE_INTERVAL == 0){
+			return profile.explore(primary, primaryMesh, secondary, secondaryMesh);
+		}
+
+		for(Stage stage : profile.plan){
+			if(!run(stage, primary, primaryMesh, secondary, secondaryMesh)){
+				return false;
+			}
+		}
+		return true;
+
+	}
+
+
+	/**
+	 * Reports the plan chosen for every group seen so far, along with the figures it was made from.
+	 *
+	 * @return
+	 * 				- One line per group, for example "mesh<1000/mesh<1000: BOX -> BUBBLE -> EXACT (BUBBLE 5200ns 61% ...)".
+	 */
+	public static String describePlans(){
+
+		StringBuilder report = new StringBuilder();
+		Map<String, Profile> sorted = new TreeMap<String, Profile>();
+		for(Profile profile : profiles.values()){
+			sorted.put(profile.name, profile);
+		}
+		for(Profile profile : sorted.values()){
+			report.append(profile).append(System.lineSeparator());
+		}
+		return report.toString();
+
+	}
+
+
+	/**
+	 * @return
+	 * 				- The plan for each group seen so far, keyed by the group's name.
+	 */
+	public static Map<String, List<Stage>> getPlans(){
+
+		Map<String, List<Stage>> plans = new TreeMap<String, List<Stage>>();
+		for(Profile profile : profiles.values()){
+			plans.put(profile.name, Arrays.asList(profile.plan));
+		}
+		return plans;
+
+	}
+
+
+	/**
+	 * Forgets every figure and plan, for example when the scene changes completely.
+	 */
+	public static void reset(){
+		profiles.clear();
+	}
+
+
+	/**
+	 * Runs one stage on a pair of meshes, every stage seeing the same collision meshes.
+	 */
+	private static boolean run(Stage stage, Entity primary, CollisionMesh primaryMesh, Entity secondary, CollisionMesh secondaryMesh){
+
+		switch(stage){
+		case BUBBLE:
+			return BubbleDetector.doesCollide(primary, primaryMesh.getVertices(), secondary, secondaryMesh.getVertices());
+		case BOX:
+			return BoundingBoxDetector.doesCollide(primary, primaryMesh.getVertices(), secondary, secondaryMesh.getVertices());
+		default:
+			return HyperPlaneDetector.doesCollide(primary, primaryMesh, secondary, secondaryMesh);
+		}
+
+	}
+
+
+	/**
+	 * The kind of shape of an entity: the primitive type, or the size bucket of its collision mesh.
+	 */
+	private static int shapeClass(Entity e, CollisionMesh mesh){
+
+		if(e.getPrimitive() != null){
+			return e.getPrimitive().getType().ordinal();
+		}
+		int vertices = mesh.getVertices().length/3;
+		int bucket = vertices < 100 ? 0 : vertices < 1000 ? 1 : vertices < 10000 ? 2 : 3;
+		return Primitive.Type.values().length + bucket;
+
+	}
+
+	private static String describe(int shapeClass){
+
+		Primitive.Type[] types = Primitive.Type.values();
+		if(shapeClass < types.length){
+			return types[shapeClass].name().toLowerCase();
+		}
+		return MESH_SIZES[shapeClass - types.length];
+
+	}
+
+
+	/**
+	 * The figures and current plan of one group of pairs. Figures are only written by explored calls and
+	 * may be read while they are written, which at worst gives a plan made from slightly old figures.
+	 *
+	 * @author CAISBlogss
+	 *
+	 */
+	private static class Profile{
+
+		String name;
+		volatile Stage[] plan = DEFAULT_PLAN;
+		AtomicLong calls = new AtomicLong();
+		LongAdder samples = new LongAdder();
+		LongAdder[] nanos = new LongAdder[]{new LongAdder(), new LongAdder(), new LongAdder()};
+		LongAdder[] runs = new LongAdder[]{new LongAdder(), new LongAdder(), new LongAdder()};
+		LongAdder[] rejects = new LongAdder[]{new LongAdder(), new LongAdder(), new LongAdder()};
+
+		protected Profile(String name){
+			this.name = name;
+		}
+
+		/**
+		 * Runs every test, whatever the others say, so each one's cost and rejection rate are measured
+		 * on every explored pair rather than only on those the others let through. Then makes a new plan.
+		 */
+		protected boolean explore(Entity primary, CollisionMesh primaryMesh, Entity secondary, CollisionMesh secondaryMesh){
+
+			boolean collided = true;
+			for(Stage stage : Stage.values()){
+				if(!timed(stage, primary, primaryMesh, secondary, secondaryMesh)){
+					collided = false;
+				}
+			}
+
+			samples.increment();
+			replan();
+			return collided;
+
+		}
+
+		private boolean timed(Stage stage, Entity primary, CollisionMesh primaryMesh, Entity secondary, CollisionMesh secondaryMesh){
+
+			long start = System.nanoTime();
+			boolean result = run(stage, primary, primaryMesh, secondary, secondaryMesh);
+			nanos[stage.ordinal()].add(System.nanoTime() - start);
+			runs[stage.ordinal()].increment();
+			if(!result){
+				rejects[stage.ordinal()].increment();
+			}
+			return result;
+
+		}
+
+		private double cost(Stage stage){
+			long count = runs[stage.ordinal()].sum();
+			return count == 0 ? 0 : nanos[stage.ordinal()].sum() / (double) count;
+		}
+
+		private double rejectRate(Stage stage){
+			long count = runs[stage.ordinal()].sum();
+			return count == 0 ? 0 : rejects[stage.ordinal()].sum() / (double) count;
+		}
+
+		private void replan(){
+
+			if(samples.sum() < MIN_SAMPLES){
+				return;
+			}
+
+			// A filter that never rejects costs an infinite amount per rejection, so it goes last
+			List<Stage> ordered = new ArrayList<Stage>(Arrays.asList(FILTERS));
+			ordered.sort(Comparator.comparingDouble(filter -> cost(filter) / rejectRate(filter)));
+			ordered.add(Stage.EXACT);
+			plan = ordered.toArray(new Stage[ordered.size()]);
+
+		}
+
+		@Override
+		public String toString(){
+
+			StringBuilder line = new StringBuilder(name).append(": ");
+			for(int i = 0; i < plan.length; i++){
+				line.append(i == 0 ? "" : " -> ").append(plan[i]);
+			}
+			line.append(" (");
+			for(Stage stage : Stage.values()){
+				line.append(stage).append(' ').append(Math.round(cost(stage))).append("ns ");
+				line.append(Math.round(rejectRate(stage) * 100)).append("% rejected, ");
+			}
+			return line.append(samples.sum()).append(" samples)").toString();
+
+		}
+	}
+
+}
@@ -0,0 +1,88 @@
+package com.tut.tutorial;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class AdaptiveDetectorTest {
+
+	/**
+	 * A cube whose only level of detail beyond the render mesh is half as large again, and always in use, as an
+	 * inflated simplification would be.
+	 */
+	private static Entity inflatedCube(float x){
+
+		Entity e = TestShapes.cube(x, 0, 0);
+		float[] inflated = new float[TestShapes.CUBE.length];
+		for(int i = 0; i < TestShapes.CUBE.length; i++){
+			inflated[i] = TestShapes.CUBE[i] * 1.5f;
+		}
+		CollisionMesh[] levels = new CollisionMesh[]{
+			new CollisionMesh(TestShapes.CUBE, TestShapes.CUBE_NORMALS, TestShapes.CUBE_INDICES),
+			new CollisionMesh(inflated, TestShapes.CUBE_NORMALS, TestShapes.CUBE_INDICES)};
+		e.setCollisionLod(new CollisionLod(levels, new float[]{0}));
+		return e;
+
+	}
+
+
+	@Test
+	public void filtersBoundTheCollisionMesh() {
+
+		AdaptiveDetector.reset();
+		// The render meshes are 0.8 apart, the inflated meshes overlap by 0.2
+		Entity primary = inflatedCube(0);
+		Entity secondary = inflatedCube(2.8f);
+		assertTrue(HyperPlaneDetector.doesCollide(primary, secondary));
+		assertFalse(BoundingBoxDetector.doesCollide(primary, secondary));
+
+		for(int i = 0; i < 4 * AdaptiveDetector.EXPLORE_INTERVAL; i++){
+			assertTrue("call " + i, AdaptiveDetector.doesCollide(primary, secondary));
+		}
+
+	}
+
+	@Test
+	public void filtersStillRejectDistantPairs() {
+
+		AdaptiveDetector.reset();
+		Entity primary = inflatedCube(0);
+		Entity secondary = inflatedCube(3.2f);
+		for(int i = 0; i < 4 * AdaptiveDetector.EXPLORE_INTERVAL; i++){
+			assertFalse("call " + i, AdaptiveDetector.doesCollide(primary, secondary));
+		}
+
+	}
+
+	@Test
+	public void answersDoNotDependOnThePlan() {
+
+		AdaptiveDetector.reset();
+		// Rotated so that no face normal separates them, though their boxes are apart
+		Entity[][] falselyTouching = new Entity[][]{
+			{TestShapes.cube(0, 0, 0, 60, 90, 60, 1), TestShapes.cube(1, 0.4f, 3.2f, 15, 60, 0, 1)},
+			{TestShapes.cube(0, 0, 0, 105, 75, 15, 1), TestShapes.cube(2.6f, 0, 3.1f, 75, 30, 15, 1)}};
+		for(Entity[] pair : falselyTouching){
+			assertTrue(HyperPlaneDetector.doesCollide(pair[0], pair[1]));
+			assertFalse(BoundingBoxDetector.doesCollide(pair[0], pair[1]));
+		}
+
+		// Pairs that never reject and pairs that always do, to push the plan for cubes one way and then the other
+		Entity[] touching = new Entity[]{TestShapes.cube(0, 0, 0), TestShapes.cube(0.5f, 0, 0)};
+		Entity[] distant = new Entity[]{TestShapes.cube(0, 0, 0), TestShapes.cube(10, 0, 0)};
+		for(Entity[] training : new Entity[][]{touching, distant, touching}){
+			// Enough explored calls to outweigh every figure gathered before
+			for(int i = 0; i < 64 * AdaptiveDetector.EXPLORE_INTERVAL; i++){
+				AdaptiveDetector.doesCollide(training[0], training[1]);
+			}
+			for(Entity[] pair : falselyTouching){
+				for(int i = 0; i < AdaptiveDetector.EXPLORE_INTERVAL; i++){
+					assertFalse(AdaptiveDetector.getPlans().toString(), AdaptiveDetector.doesCollide(pair[0], pair[1]));
+				}
+			}
+		}
+
+	}
+
+}
@@ -1,9 +1,5 @@
 package com.tut.tutorial;
 
-import com.tut.prerequesits.Entity;
-import com.tut.prerequesits.Matrix4f;
-import com.tut.prerequesits.Vector4f;
-
 /**
  * 
  * Runs an algorithm to determine if any two given entities collided with each other.
@@ -12,12 +8,53 @@ import com.tut.prerequesits.Vector4f;
  * to check for overlap. If there is an overlap a collision is assumed. Otherwise
  * no collision could possibly occur.
  * 
+ * How the box is found is chosen with {@link #setMode(Mode)}. Transforming every vertex
+ * is exact but costs one matrix multiplication per vertex, the other modes trade this for
+ * work done once per model.
+ * 
  * @author CAISBlogss
  *
  */
 
 public class BoundingBoxDetector {
 
+	/**
+	 * The ways a world space bounding box can be found for an entity.
+	 */
+	public enum Mode {
+		/** Transform every vertex of the model. Exact, cost grows with the vertex count. */
+		MESH,
+		/** Transform the cached model space box. Constant cost, the box may be larger than the model's true box. */
+		LOCAL_BOX,
+		/** Transform only the vertices of the cached convex hull. Exact, cost grows with the hull vertex count. */
+		HULL
+	}
+	
+	// Read by every thread that finds boxes, so writes must be seen by all of them
+	private static volatile Mode mode = Mode.MESH;
+	
+	private static final float[] IDENTITY = new float[]{1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1};
+	
+	// The transformation of the entity being boxed, one per thread so boxes can be found in parallel
+	private static final ThreadLocal<float[]> TRANSFORMATION = ThreadLocal.withInitial(() -> new float[16]);
+	
+	
+	/**
+	 * Chooses how {@link #findAxisAlignedBoundingBox(Entity)} finds the box of an entity. The mode is
+	 * shared by every thread, so it is meant to be set once at startup, before any detector runs.
+	 * Changing it while another thread finds boxes leaves that thread free to use either mode.
+	 * 
+	 * @param newMode
+	 * 				- The mode used by every following call.
+	 */
+	public static void setMode(Mode newMode){
+		mode = newMode;
+	}
+	
+	public static Mode getMode(){
+		return mode;
+	}
+	
 	
 	/**
 	 * Runs the AxisAlignedBoundingBox algorithm on the two entities, returning the collision
@@ -33,8 +70,38 @@ public class BoundingBoxDetector {
 	 */
 	public static boolean doesCollide(Entity primary, Entity secondary){
 		
-		float[] primaryBox = findAxisAlignedBoundingBox(primary);
-		float[] secondaryBox = findAxisAlignedBoundingBox(secondary);
+		double[] origin = Maths.findPairOrigin(primary, secondary);
+		float[] primaryBox = findAxisAlignedBoundingBox(primary, origin);
+		float[] secondaryBox = findAxisAlignedBoundingBox(secondary, origin);
+		return intersects(primaryBox, secondaryBox);
+		
+	}
+	
+	
+	/**
+	 * Runs the bounding box algorithm on boxes around the given model space vertices rather than those chosen
+	 * with {@link #setMode(Mode)}, for example the vertices of a {@link CollisionMesh} another detector is about to test.
+	 * 
+	 * @param primary
+	 * 				- An entity to check collision. Order insignificant.
+	 * @param primaryVertices
+	 * 				- The vertices of the primary entity to bound, stored {x, y, z, x, y, z...}
+	 * @param secondary
+	 *           	- Another entity to check collision. Order insignificant.
+	 * @param secondaryVertices
+	 * 				- The vertices of the secondary entity to bound, stored {x, y, z, x, y, z...}
+	 * 
+	 * @return 
+	 * 				- The collision state: true if there is a collision, false if there is no collision.
+	 */
+	public static boolean doesCollide(Entity primary, float[] primaryVertices, Entity secondary, float[] secondaryVertices){
+		
+		double[] origin = Maths.findPairOrigin(primary, secondary);
+		float[] transformation = TRANSFORMATION.get();
+		Maths.loadTransformation(primary, origin, transformation, 0);
+		float[] primaryBox = findBoundingBox(primaryVertices, transformation);
+		Maths.loadTransformation(secondary, origin, transformation, 0);
+		float[] secondaryBox = findBoundingBox(secondaryVertices, transformation);
 		return intersects(primaryBox, secondaryBox);
 		
 	}
@@ -68,9 +135,8 @@ public class BoundingBoxDetector {
 	
 	
 	/**
-	 * Calculates the axis aligned bounding box containing all vertices and stores it as the maximum and minimum
-	 * position on each axial plane. This method loads in all vertices for a given shape, converts them to WorldSpace,
-	 * iterates through them to find each maximum and minimum value and returns the result.
+	 * Calculates the axis aligned bounding box of the entity in WorldSpace and stores it as the maximum and minimum
+	 * position on each axial plane, using the method chosen with {@link #setMode(Mode)}.
 	 * 
 	 * @param e
 	 * 			- The entity to extract the bounding box from.
@@ -79,11 +145,111 @@ public class BoundingBoxDetector {
 	 * 			- The bounding box to be read as {minX, maxX, minY, maxY, minZ, maxZ}
 	 */
 	public static float[] findAxisAlignedBoundingBox(Entity e){
+		return findAxisAlignedBoundingBox(e, Maths.worldOrigin());
+	}
+	
+	
+	/**
+	 * Calculates the axis aligned bounding box of the entity in a frame centred on the given origin,
+	 * see {@link Maths#loadTransformation(Entity, double[], float[], int)}.
+	 * 
+	 * @param e
+	 * 			- The entity to extract the bounding box from.
+	 * @param origin
+	 * 			- The WorldSpace position of the centre of the frame, stored {x, y, z}
+	 * 
+	 * @return 
+	 * 			- The bounding box to be read as {minX, maxX, minY, maxY, minZ, maxZ}
+	 */
+	public static float[] findAxisAlignedBoundingBox(Entity e, double[] origin){
+		
+		float[] transformation = TRANSFORMATION.get();
+		Maths.loadTransformation(e, origin, transformation, 0);
+		
+		switch(mode){
+		case LOCAL_BOX:
+			return transformBoundingBox(e.getLocalBounds(), transformation);
+		case HULL:
+			return findBoundingBox(e.getHull().getVertices(), transformation);
+		default:
+			return findBoundingBox(e.getVertices(), transformation);
+		}
+		
+	}
+	
+	
+	/**
+	 * Calculates the axis aligned bounding box of a group of model space vertices before any transformation is applied.
+	 * 
+	 * @param vertices
+	 * 			- The vertices stored {x, y, z, x, y, z...}
+	 * 
+	 * @return 
+	 * 			- The bounding box to be read as {minX, maxX, minY, maxY, minZ, maxZ}
+	 */
+	public static float[] findLocalBoundingBox(float[] vertices){
 		
-		float[] vertices = e.getVertices();
-		Matrix4f transformation = Maths.createTransformationMatrix(e);
-		Vector4f vertex = new Vector4f();
+		return findBoundingBox(vertices, IDENTITY);
 		
+	}
+	
+	
+	/**
+	 * Transforms a model space bounding box into a WorldSpace axis aligned bounding box without
+	 * touching any vertices (Arvo's method). Each world axis is the sum of the contributions of
+	 * the three model axes, and each contribution is smallest at one end of the box and largest
+	 * at the other, so the extremes can be read directly from the matrix entries.
+	 * 
+	 * The result is the exact box around the transformed box, which fully contains the model but
+	 * may be larger than the box around the transformed vertices once the model is rotated.
+	 * 
+	 * @param local
+	 * 			- The model space box to be read as {minX, maxX, minY, maxY, minZ, maxZ}
+	 * @param m
+	 * 			- The transformation from model space to WorldSpace, 16 floats ordered as by {@link Maths#composeTransformation}
+	 * 
+	 * @return 
+	 * 			- The bounding box to be read as {minX, maxX, minY, maxY, minZ, maxZ}
+	 */
+	public static float[] transformBoundingBox(float[] local, float[] m){
+		
+		// Start from the translation, then add the smaller and larger contribution of each model axis
+		float[] box = new float[]{m[12], m[12], m[13], m[13], m[14], m[14]};
+		
+		for(int i = 0; i < 3; i++){
+			for(int j = 0; j < 3; j++){
+				// Row i of column j
+				float a = m[(4 * j) + i] * local[2 * j];
+				float b = m[(4 * j) + i] * local[(2 * j) + 1];
+				if(a < b){
+					box[2 * i] += a;
+					box[(2 * i) + 1] += b;
+				} else {
+					box[2 * i] += b;
+					box[(2 * i) + 1] += a;
+				}
+			}
+		}
+		
+		return box;
+		
+	}
+	
+	
+	/**
+	 * Calculates the axis aligned bounding box containing all vertices and stores it as the maximum and minimum
+	 * position on each axial plane. This method converts every vertex to WorldSpace,
+	 * iterates through them to find each maximum and minimum value and returns the result.
+	 * 
+	 * @param vertices
+	 * 			- The model space vertices stored {x, y, z, x, y, z...}
+	 * @param m
+	 * 			- The transformation from model space to WorldSpace, 16 floats ordered as by {@link Maths#composeTransformation}
+	 * 
+	 * @return 
+	 * 			- The bounding box to be read as {minX, maxX, minY, maxY, minZ, maxZ}
+	 */
+	private static float[] findBoundingBox(float[] vertices, float[] m){
 		
 		float minX = 0;
 		float maxX = 0;
@@ -96,38 +262,42 @@ public class BoundingBoxDetector {
 			
 			int root = i*3;
 			
-			vertex.set(vertices[root], vertices[root + 1], vertices[root+2], 1);
-			Matrix4f.transform(transformation, vertex, vertex);
+			float vx = vertices[root];
+			float vy = vertices[root + 1];
+			float vz = vertices[root + 2];
+			float x = (m[0] * vx) + (m[4] * vy) + (m[8] * vz) + m[12];
+			float y = (m[1] * vx) + (m[5] * vy) + (m[9] * vz) + m[13];
+			float z = (m[2] * vx) + (m[6] * vy) + (m[10] * vz) + m[14];
 			
 			if(i == 0 ){
 				
-				minX = vertex.x;
-				maxX = vertex.x;
-				minY = vertex.y;
-				maxY = vertex.y;
-				minZ = vertex.z;
-				maxZ = vertex.z;
+				minX = x;
+				maxX = x;
+				minY = y;
+				maxY = y;
+				minZ = z;
+				maxZ = z;
 				
 				
 			} else {
 				
-				if(vertex.x > maxX){
-					maxX = vertex.x;
+				if(x > maxX){
+					maxX = x;
 				}
-				if(vertex.y > maxY){
-					maxY = vertex.y;
+				if(y > maxY){
+					maxY = y;
 				}
-				if(vertex.z > maxZ){
-					maxZ = vertex.z;
+				if(z > maxZ){
+					maxZ = z;
 				}
-				if(vertex.x < minX){
-					minX = vertex.x;
+				if(x < minX){
+					minX = x;
 				}
-				if(vertex.y < minY){
-					minY = vertex.y;
+				if(y < minY){
+					minY = y;
 				}
-				if(vertex.z < minZ){
-					minZ = vertex.z;
+				if(z < minZ){
+					minZ = z;
 				}
 			}
 			
@@ -0,0 +1,66 @@
+package com.tut.tutorial;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BoundingBoxDetectorTest {
+
+	private static final float EPSILON = 1e-4f;
+
+
+	private static float[] boxIn(BoundingBoxDetector.Mode mode, Entity e){
+
+		BoundingBoxDetector.Mode previous = BoundingBoxDetector.getMode();
+		BoundingBoxDetector.setMode(mode);
+		try {
+			return BoundingBoxDetector.findAxisAlignedBoundingBox(e);
+		} finally {
+			BoundingBoxDetector.setMode(previous);
+		}
+
+	}
+
+	private static Entity randomCube(Random random){
+
+		return TestShapes.cube((random.nextFloat() - 0.5f) * 100, (random.nextFloat() - 0.5f) * 100, (random.nextFloat() - 0.5f) * 100,
+				random.nextFloat() * 360, random.nextFloat() * 360, random.nextFloat() * 360, 0.5f + (random.nextFloat() * 4));
+
+	}
+
+
+	@Test
+	public void localBoxContainsMeshBox() {
+
+		Random random = new Random(26);
+		for(int i = 0; i < 200; i++){
+			Entity e = randomCube(random);
+			float[] mesh = boxIn(BoundingBoxDetector.Mode.MESH, e);
+			float[] local = boxIn(BoundingBoxDetector.Mode.LOCAL_BOX, e);
+			for(int axis = 0; axis < 3; axis++){
+				assertTrue(local[2 * axis] <= mesh[2 * axis] + EPSILON);
+				assertTrue(local[(2 * axis) + 1] >= mesh[(2 * axis) + 1] - EPSILON);
+			}
+		}
+
+	}
+
+	@Test
+	public void hullBoxMatchesMeshBoxForRotatedEntities() {
+
+		Random random = new Random(26);
+		for(int i = 0; i < 200; i++){
+			Entity e = randomCube(random);
+			float[] mesh = boxIn(BoundingBoxDetector.Mode.MESH, e);
+			float[] hull = boxIn(BoundingBoxDetector.Mode.HULL, e);
+			for(int j = 0; j < 6; j++){
+				assertEquals(mesh[j], hull[j], EPSILON);
+			}
+		}
+
+	}
+
+}
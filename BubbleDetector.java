@@ -1,6 +1,5 @@
 package com.tut.tutorial;
 
-import com.tut.prerequesits.Entity;
 import com.tut.prerequesits.Vector3f;
 
 /**
@@ -31,10 +30,36 @@ public class BubbleDetector {
 	 * 				- The collision state: true if there is a collision, false if there is no collision.
 	 */
 	public static boolean doesCollide(Entity primary, Entity secondary){
+		return doesCollide(primary, primary.getVertices(), secondary, secondary.getVertices());
+	}
+	
+	
+	/**
+	 * Runs the bubble algorithm with the spheres sized to the given model space vertices rather than the
+	 * render mesh, for example those of a {@link CollisionMesh} another detector is about to test.
+	 * 
+	 * @param primary
+	 * 				- An entity to check collision. Order insignificant.
+	 * @param primaryVertices
+	 * 				- The vertices of the primary entity to bound, stored {x, y, z, x, y, z...}
+	 * @param secondary
+	 *           	- Another entity to check collision. Order insignificant.
+	 * @param secondaryVertices
+	 * 				- The vertices of the secondary entity to bound, stored {x, y, z, x, y, z...}
+	 * 
+	 * @return 
+	 * 				- The collision state: true if there is a collision, false if there is no collision.
+	 */
+	public static boolean doesCollide(Entity primary, float[] primaryVertices, Entity secondary, float[] secondaryVertices){
 		
-		float furthestPrimary = findFurthestPoint(primary) * primary.getScale();
-		float furthestSecondary = findFurthestPoint(secondary) * secondary.getScale();
-		float distOrigin = Vector3f.sub(primary.getPosition(), secondary.getPosition(), null).length();
+		float furthestPrimary = findFurthestPoint(primaryVertices) * primary.getScale();
+		float furthestSecondary = findFurthestPoint(secondaryVertices) * secondary.getScale();
+		double[] primaryPosition = primary.getWorldPosition();
+		double[] secondaryPosition = secondary.getWorldPosition();
+		float distOrigin = new Vector3f(
+				(float) (primaryPosition[0] - secondaryPosition[0]),
+				(float) (primaryPosition[1] - secondaryPosition[1]),
+				(float) (primaryPosition[2] - secondaryPosition[2])).length();
 		return distOrigin <= furthestPrimary + furthestSecondary;
 		
 		
@@ -49,16 +74,14 @@ public class BubbleDetector {
 	 * 		running the search every time can be slow when each entity can store the value and retrieve it when
 	 * 		needed.
 	 * 
-	 * @param e
-	 * 			- The entity to extract the farthest point from.
+	 * @param vertices
+	 * 			- The model space vertices to extract the farthest point from, normally the model vertices used to render the shape.
 	 * 
 	 * @return 
 	 * 			- The length of the farthest point in respect to the origin
 	 */
-	private static float findFurthestPoint(Entity e){
+	private static float findFurthestPoint(float[] vertices){
 		
-		// These are the model vertices, used to render the shape. You should be able to retrieve them from your Entity.
-		float[] vertices = e.getVertices();
 		float longestDistance = 0;
 		for(int i = 0; i < vertices.length/3; i++){
 			
@@ -0,0 +1,33 @@
+package com.tut.tutorial;
+
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 
+ * A connection to a {@link CollisionService}. Queries are pipelined: {@link #submit(CollisionService.Query)}
+ * returns at once and any number of queries can be outstanding. Queries are held until {@link #flush()},
+ * so that everything asked for in a tick reaches the service as one batch.
+ * 
+ * The id of a submitted query is replaced by one chosen by the client, so callers need not number their queries.
+ * 
+ * @author CAISBlogss
+ *
+ */
+public interface CollisionClient extends Closeable {
+	
+	/**
+	 * @param query
+	 * 				- The query to ask.
+	 * 
+	 * @return
+	 * 				- Completes with the answer once the service has replied.
+	 */
+	CompletableFuture<CollisionService.Result> submit(CollisionService.Query query);
+	
+	/**
+	 * Sends every query submitted since the last flush.
+	 */
+	void flush();
+	
+}
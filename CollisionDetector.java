@@ -1,9 +1,15 @@
 package com.tut.tutorial;
 
+import com.tut.prerequesits.Vector3f;
+
 /**
  * 
  * This static class is a wrapper for all collision detectors and acts as
- * a simple interface with {@link BubbleDetector} and {@link BoundingBoxDetector}
+ * a simple interface with {@link BubbleDetector}, {@link BoundingBoxDetector},
+ * {@link HyperPlaneDetector}, {@link PrimitiveDetector} and {@link AdaptiveDetector}
+ * 
+ * Pairs ruled out by the entities' layers, masks or body types (see {@link CollisionFilter})
+ * are reported as not colliding without running any detector.
  * 
  * @author CAISBlogss
  *
@@ -25,7 +31,7 @@ public class CollisionDetector {
 	 * 				- The collision state: true if there is a collision, false if there is no collision.
 	 */
 	public static boolean bubbleCollide(Entity primary, Entity secondary){
-		return BubbleDetector.doesCollide(primary, secondary);
+		return CollisionFilter.canCollide(primary, secondary) && BubbleDetector.doesCollide(primary, secondary);
 	}
 	
 	
@@ -41,12 +47,116 @@ public class CollisionDetector {
 	 * @return collisionState
 	 */
 	public static boolean boxCollide(Entity primary, Entity secondary){
-		return BoundingBoxDetector.doesCollide(primary, secondary);
+		return CollisionFilter.canCollide(primary, secondary) && BoundingBoxDetector.doesCollide(primary, secondary);
 	}
 	
 
 	public static boolean hyperplaneCollide(Entity primary, Entity secondary){
-		return HyperPlaneDetector.doesCollide(primary, secondary);
+		return CollisionFilter.canCollide(primary, secondary) && HyperPlaneDetector.doesCollide(primary, secondary);
+	}
+	
+	
+	/**
+	 * Algorithm determines if two entities have collided - this uses the
+	 * {@link HyperPlaneDetector}'s algorithm on the convex hull parts of each entity,
+	 * see {@link ConvexDecomposition}.
+	 * 
+	 * @param primary
+	 * 				- An entity to check collision. Order insignificant.
+	 * @param secondary
+	 *           	- Another entity to check collision. Order insignificant.
+	 * 
+	 * @return 
+	 * 				- The collision state: true if there is a collision, false if there is no collision.
+	 */
+	public static boolean hullCollide(Entity primary, Entity secondary){
+		return CollisionFilter.canCollide(primary, secondary) && HyperPlaneDetector.doesCollideHulls(primary, secondary);
+	}
+	
+	
+	/**
+	 * Algorithm determines if two entities have collided - this uses the
+	 * {@link PrimitiveDetector}'s closed form test for the entities' {@link Primitive}s,
+	 * treating any entity without a primitive as a mesh.
+	 * 
+	 * @param primary
+	 * 				- An entity to check collision. Order insignificant.
+	 * @param secondary
+	 *           	- Another entity to check collision. Order insignificant.
+	 * 
+	 * @return 
+	 * 				- The collision state: true if there is a collision, false if there is no collision.
+	 */
+	public static boolean primitiveCollide(Entity primary, Entity secondary){
+		return CollisionFilter.canCollide(primary, secondary) && PrimitiveDetector.doesCollide(primary, secondary);
+	}
+	
+	
+	
+	/**
+	 * Algorithm determines if two entities have collided - this uses the {@link AdaptiveDetector},
+	 * which runs the bubble and box tests before the exact test in the order measurements show
+	 * rejects this kind of pair most cheaply.
+	 * 
+	 * @param primary
+	 * 				- An entity to check collision. Order insignificant.
+	 * @param secondary
+	 *           	- Another entity to check collision. Order insignificant.
+	 * 
+	 * @return 
+	 * 				- The collision state: true if there is a collision, false if there is no collision.
+	 */
+	public static boolean adaptiveCollide(Entity primary, Entity secondary){
+		return CollisionFilter.canCollide(primary, secondary) && AdaptiveDetector.doesCollide(primary, secondary);
+	}
+	
+	
+	/**
+	 * @return
+	 * 				- The plans {@link #adaptiveCollide(Entity, Entity)} is following, one line per kind of pair, with the figures behind them.
+	 */
+	public static String describeAdaptivePlans(){
+		return AdaptiveDetector.describePlans();
+	}
+	
+	
+	
+	/**
+	 * Algorithm determines if an entity moving with a given velocity will hit another - this uses the
+	 * {@link FauerbyDetector}'s swept sphere algorithm.
+	 * 
+	 * @param primary
+	 * 				- The moving entity.
+	 * @param velocity
+	 * 				- How far the primary entity moves this tick.
+	 * @param secondary
+	 *           	- The entity it may hit.
+	 * 
+	 * @return 
+	 * 				- The collision state: true if there is a collision, false if there is no collision.
+	 */
+	public static boolean sweepCollide(Entity primary, Vector3f velocity, Entity secondary){
+		return CollisionFilter.canCollide(primary, secondary) && FauerbyDetector.doesCollide(primary, velocity, secondary);
+	}
+	
+	
+	/**
+	 * Casts a ray at an entity - this uses the {@link RayDetector}.
+	 * 
+	 * @param e
+	 * 				- The entity to cast at.
+	 * @param origin
+	 * 				- The WorldSpace start of the ray.
+	 * @param direction
+	 * 				- The WorldSpace direction of the ray.
+	 * @param maxDistance
+	 * 				- The furthest along the ray a hit counts.
+	 * 
+	 * @return 
+	 * 				- The distance to the first hit, or -1 if the ray misses.
+	 */
+	public static float rayCast(Entity e, Vector3f origin, Vector3f direction, float maxDistance){
+		return RayDetector.cast(e, origin, direction, maxDistance);
 	}
 	
 
@@ -0,0 +1,51 @@
+package com.tut.tutorial;
+
+/**
+ *
+ * Decides whether two entities should be tested for collision at all, before any bounds or
+ * geometry are looked at.
+ *
+ * Every entity belongs to one or more layers and has a mask of the layers it collides with,
+ * both stored as bits of an int. A pair is only tested if each entity's layer is in the other's
+ * mask. Pairs where neither entity is {@link Entity.BodyType#DYNAMIC} are never tested either:
+ * static and sleeping entities do not move, so no new collision can appear between them.
+ *
+ * By default an entity is dynamic, on layer 1 and collides with every layer, so every pair is tested.
+ *
+ * @author CAISBlogss
+ *
+ */
+public class CollisionFilter {
+
+
+	/**
+	 * @param primary
+	 * 				- An entity to check. Order insignificant.
+	 * @param secondary
+	 *           	- Another entity to check. Order insignificant.
+	 *
+	 * @return
+	 * 				- true if the pair should go on to be tested, false if it can be skipped.
+	 */
+	public static boolean canCollide(Entity primary, Entity secondary){
+
+		if(primary.getBodyType() != Entity.BodyType.DYNAMIC && secondary.getBodyType() != Entity.BodyType.DYNAMIC){
+			return false;
+		}
+		return (primary.getLayer() & secondary.getMask()) != 0 && (secondary.getLayer() & primary.getMask()) != 0;
+
+	}
+
+
+	/**
+	 * @param e
+	 * 				- The entity to check.
+	 *
+	 * @return
+	 * 				- false if the entity can never collide with anything, so its bounds need never be found.
+	 */
+	public static boolean canCollideWithAnything(Entity e){
+		return e.getLayer() != 0 && e.getMask() != 0;
+	}
+
+}
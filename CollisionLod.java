@@ -0,0 +1,120 @@
+package com.tut.tutorial;
+
+/**
+ *
+ * A set of collision meshes for one entity at falling levels of detail, with the distance from
+ * the viewer at which each takes over. Pairs far from the viewer, where a slightly early or late
+ * contact cannot be seen, are tested with coarse meshes, so the cost of the mesh detectors no
+ * longer follows the detail of the art.
+ *
+ * Level 0 is always the render mesh. Less important entities can be given an importance below 1,
+ * which shrinks their switch distances so they drop to coarse meshes sooner.
+ *
+ * @author CAISBlogss
+ *
+ */
+public class CollisionLod {
+
+	private static volatile double[] viewer = new double[]{0, 0, 0};
+
+	private CollisionMesh[] levels;
+	private float[] distances;
+	private float importance = 1;
+
+
+	/**
+	 * @param levels
+	 * 				- The meshes from finest to coarsest.
+	 * @param distances
+	 * 				- The distance from the viewer at which each level after the first takes over, one fewer than there are levels, increasing.
+	 */
+	public CollisionLod(CollisionMesh[] levels, float[] distances){
+
+		this.levels = levels;
+		this.distances = distances;
+
+	}
+
+
+	/**
+	 * Simplifies the entity's mesh into the given levels and attaches them to the entity.
+	 *
+	 * @param e
+	 * 				- The entity to build levels for.
+	 * @param ratios
+	 * 				- The fraction of triangles kept at each level after the first.
+	 * @param distances
+	 * 				- The distance from the viewer at which each of those levels takes over.
+	 * @param maxError
+	 * 				- The error limit for every level in model space units, see {@link MeshSimplifier#simplify(float[], int[], float, float)}.
+	 *
+	 * @return
+	 * 				- The levels, also set on the entity.
+	 */
+	public static CollisionLod build(Entity e, float[] ratios, float[] distances, float maxError){
+
+		CollisionMesh[] levels = new CollisionMesh[ratios.length + 1];
+		levels[0] = new CollisionMesh(e.getVertices(), e.getNormals(), e.getIndices());
+		for(int i = 0; i < ratios.length; i++){
+			levels[i + 1] = MeshSimplifier.simplify(e.getVertices(), e.getIndices(), ratios[i], maxError);
+		}
+
+		CollisionLod lod = new CollisionLod(levels, distances);
+		e.setCollisionLod(lod);
+		return lod;
+
+	}
+
+
+	/**
+	 * Sets the WorldSpace point that distances are measured from, normally the camera. Should be set once per tick.
+	 */
+	public static void setViewer(double x, double y, double z){
+		viewer = new double[]{x, y, z};
+	}
+
+
+	/**
+	 * Chooses the level to use for the entity from its distance to the viewer.
+	 *
+	 * @param e
+	 * 				- The entity these levels belong to.
+	 *
+	 * @return
+	 * 				- The collision mesh to test with.
+	 */
+	public CollisionMesh select(Entity e){
+
+		double[] position = e.getWorldPosition();
+		double[] from = viewer;
+		double dx = position[0] - from[0];
+		double dy = position[1] - from[1];
+		double dz = position[2] - from[2];
+		double distance = Math.sqrt((dx * dx) + (dy * dy) + (dz * dz)) * (1f / importance);
+
+		int level = 0;
+		while(level < distances.length && distance >= distances[level]){
+			level++;
+		}
+		return levels[Math.min(level, levels.length - 1)];
+
+	}
+
+
+	public CollisionMesh[] getLevels() {
+		return levels;
+	}
+
+	public float getImportance() {
+		return importance;
+	}
+
+	/**
+	 * @param importance
+	 * 				- How much detail the entity deserves, 1 by default. Must be above 0.
+	 */
+	public void setImportance(float importance) {
+		this.importance = importance;
+	}
+
+}
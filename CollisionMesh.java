@@ -0,0 +1,101 @@
+package com.tut.tutorial;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *
+ * The geometry the mesh detectors run on, kept apart from the model that is rendered. By default
+ * an entity's collision mesh is its render mesh, but a {@link CollisionLod} can swap in coarser
+ * meshes built by the {@link MeshSimplifier}.
+ *
+ * @author CAISBlogss
+ *
+ */
+public class CollisionMesh {
+
+	private float[] vertices;
+	private float[] normals;
+	private int[] indices;
+
+
+	/**
+	 * @param vertices
+	 * 				- The vertices stored {x, y, z, x, y, z...}
+	 * @param normals
+	 * 				- The normals used as separating axes by the {@link HyperPlaneDetector}, stored {x, y, z, x, y, z...}
+	 * @param indices
+	 * 				- The triangles as indices into the vertices.
+	 */
+	public CollisionMesh(float[] vertices, float[] normals, int[] indices){
+
+		this.vertices = vertices;
+		this.normals = normals;
+		this.indices = indices;
+
+	}
+
+
+	/**
+	 * Builds a mesh from triangles alone, using the normal of each differently oriented face.
+	 */
+	public static CollisionMesh fromTriangles(float[] vertices, int[] indices){
+
+		List<float[]> distinct = new ArrayList<float[]>();
+		for(int i = 0; i < indices.length/3; i++){
+
+			int a = 3 * indices[3 * i];
+			int b = 3 * indices[(3 * i) + 1];
+			int c = 3 * indices[(3 * i) + 2];
+			float ux = vertices[b] - vertices[a];
+			float uy = vertices[b + 1] - vertices[a + 1];
+			float uz = vertices[b + 2] - vertices[a + 2];
+			float vx = vertices[c] - vertices[a];
+			float vy = vertices[c + 1] - vertices[a + 1];
+			float vz = vertices[c + 2] - vertices[a + 2];
+			float nx = (uy * vz) - (uz * vy);
+			float ny = (uz * vx) - (ux * vz);
+			float nz = (ux * vy) - (uy * vx);
+			float length = (float) Math.sqrt((nx * nx) + (ny * ny) + (nz * nz));
+			if(length == 0){
+				continue;
+			}
+			nx /= length;
+			ny /= length;
+			nz /= length;
+
+			boolean seen = false;
+			for(float[] normal : distinct){
+				if((normal[0] * nx) + (normal[1] * ny) + (normal[2] * nz) > 1 - 1e-5f){
+					seen = true;
+					break;
+				}
+			}
+			if(!seen){
+				distinct.add(new float[]{nx, ny, nz});
+			}
+		}
+
+		float[] normals = new float[distinct.size() * 3];
+		for(int i = 0; i < distinct.size(); i++){
+			normals[3 * i] = distinct.get(i)[0];
+			normals[(3 * i) + 1] = distinct.get(i)[1];
+			normals[(3 * i) + 2] = distinct.get(i)[2];
+		}
+		return new CollisionMesh(vertices, normals, indices);
+
+	}
+
+	public float[] getVertices() {
+		return vertices;
+	}
+
+	public float[] getNormals() {
+		return normals;
+	}
+
+	public int[] getIndices() {
+		return indices;
+	}
+
+}
@@ -0,0 +1,166 @@
+package com.tut.tutorial;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 
+ * Serves a {@link CollisionService} to other processes on the same machine over a loopback socket.
+ * 
+ * Each connection has a reader thread. It blocks for one query, then takes every further query that
+ * has already arrived, up to {@link #MAX_BATCH}, and hands the lot to the service as one batch. The
+ * reader goes straight back to the socket while the batch runs, so a client can keep several batches
+ * in flight. Results are written back as each batch completes and carry the id of their query, so they
+ * need not arrive in the order they were asked.
+ * 
+ * The socket is bound to the loopback address only, so the service cannot be reached from another machine.
+ * Closing the server closes every connection it accepted, which ends their reader threads.
+ * 
+ * @author CAISBlogss
+ *
+ */
+public class CollisionServer implements Closeable {
+	
+	/** The most queries collected into one batch */
+	public static final int MAX_BATCH = 1024;
+	
+	/** The fewest bytes any query takes on the wire, used to tell whether another query has fully arrived */
+	private static final int SMALLEST_QUERY = 14;
+	
+	private CollisionService service;
+	private ServerSocket server;
+	private Set<Socket> connections = ConcurrentHashMap.newKeySet();
+	private volatile boolean closed;
+	
+	
+	/**
+	 * Starts listening.
+	 * 
+	 * @param service
+	 * 				- The service to answer queries with.
+	 * @param port
+	 * 				- The port to listen on, 0 picks any free port.
+	 */
+	public CollisionServer(CollisionService service, int port) throws IOException {
+		
+		this.service = service;
+		this.server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+		
+		Thread acceptor = new Thread(this::accept, "collision-server");
+		acceptor.setDaemon(true);
+		acceptor.start();
+		
+	}
+	
+	
+	public int getPort(){
+		return server.getLocalPort();
+	}
+	
+	
+	/**
+	 * Stops accepting connections and closes the open ones. Batches still running are answered into closed sockets and dropped.
+	 */
+	@Override
+	public void close() throws IOException {
+		
+		closed = true;
+		server.close();
+		for(Socket socket : connections){
+			closeQuietly(socket);
+		}
+		connections.clear();
+		
+	}
+	
+	
+	/**
+	 * @return
+	 * 				- The number of connections currently open.
+	 */
+	public int getConnectionCount(){
+		return connections.size();
+	}
+	
+	
+	private void accept(){
+		
+		try {
+			while(true){
+				final Socket socket = server.accept();
+				connections.add(socket);
+				// A connection accepted while the server was closing would be missed by close()
+				if(closed){
+					closeQuietly(socket);
+					connections.remove(socket);
+					break;
+				}
+				socket.setTcpNoDelay(true);
+				Thread reader = new Thread(() -> serve(socket), "collision-server-connection");
+				reader.setDaemon(true);
+				reader.start();
+			}
+		} catch (IOException e) {
+			// The server socket was closed
+		}
+		
+	}
+	
+	
+	private void serve(Socket socket){
+		
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			
+			while(true){
+				List<CollisionService.Query> batch = new ArrayList<CollisionService.Query>();
+				batch.add(CollisionService.Query.read(in));
+				// A query that has only partly arrived is waited for, the rest of it is already on its way
+				while(batch.size() < MAX_BATCH && in.available() >= SMALLEST_QUERY){
+					batch.add(CollisionService.Query.read(in));
+				}
+				
+				service.process(batch).thenAccept(results -> {
+					try {
+						synchronized(out){
+							for(CollisionService.Result result : results){
+								result.write(out);
+							}
+							out.flush();
+						}
+					} catch (IOException e) {
+						closeQuietly(socket);
+					}
+				});
+			}
+		} catch (IOException e) {
+			// The client went away or the server was closed
+		} finally {
+			closeQuietly(socket);
+			connections.remove(socket);
+		}
+		
+	}
+	
+	
+	private static void closeQuietly(Socket socket){
+		try {
+			socket.close();
+		} catch (IOException e) {
+			// Already closed
+		}
+	}
+	
+}
@@ -0,0 +1,362 @@
+package com.tut.tutorial;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+import com.tut.prerequesits.Vector3f;
+
+/**
+ *
+ * Answers collision queries against one shared copy of the world's geometry, so that several
+ * processes can ask questions without each holding their own. Entities are registered under an
+ * id and queries refer to them by that id.
+ *
+ * Queries arrive in batches. Every query in a batch is independent, so the batch is spread over
+ * the executor and the results are handed back together once all are done. {@link CollisionServer}
+ * feeds this from a socket, {@link LocalCollisionClient} feeds it directly in the same process.
+ *
+ * The wire format of a query and result is given by {@link Query#write(DataOutputStream)} and
+ * {@link Result#write(DataOutputStream)}. All numbers are big endian.
+ *
+ * @author CAISBlogss
+ *
+ */
+public class CollisionService {
+
+	/** A pair test, answered by one of the detectors chosen by the query */
+	public static final byte PAIR = 0;
+	/** A swept test of a moving entity against another */
+	public static final byte SWEEP = 1;
+	/** A ray cast against an entity */
+	public static final byte RAY = 2;
+
+	/** The detectors a pair query can ask for */
+	public static final byte BUBBLE = 0;
+	public static final byte BOX = 1;
+	public static final byte HYPERPLANE = 2;
+	public static final byte HULL = 3;
+	public static final byte PRIMITIVE = 4;
+
+	private Map<Integer, Entity> entities = new ConcurrentHashMap<Integer, Entity>();
+	private ExecutorService executor;
+
+
+	/**
+	 * @param executor
+	 * 				- The executor queries of a batch are run on.
+	 */
+	public CollisionService(ExecutorService executor){
+		this.executor = executor;
+	}
+
+
+	/**
+	 * Makes an entity available to queries. Registering a new entity under an existing id replaces the old one.
+	 */
+	public void register(int id, Entity e){
+		entities.put(id, e);
+	}
+
+	public void unregister(int id){
+		entities.remove(id);
+	}
+
+
+	/**
+	 * Answers a batch of queries in parallel.
+	 *
+	 * @param batch
+	 * 				- The queries to answer.
+	 *
+	 * @return
+	 * 				- Completes with one result per query, in the order of the batch.
+	 */
+	public CompletableFuture<List<Result>> process(List<Query> batch){
+
+		List<CompletableFuture<Result>> running = new ArrayList<CompletableFuture<Result>>();
+		for(final Query query : batch){
+			running.add(CompletableFuture.supplyAsync(() -> answer(query), executor));
+		}
+
+		return CompletableFuture.allOf(running.toArray(new CompletableFuture<?>[running.size()])).thenApply(done -> {
+			List<Result> results = new ArrayList<Result>();
+			for(CompletableFuture<Result> result : running){
+				results.add(result.join());
+			}
+			return results;
+		});
+
+	}
+
+
+	/**
+	 * Answers a single query on the calling thread.
+	 */
+	public Result answer(Query query){
+
+		Entity primary = entities.get(query.primary);
+		Entity secondary = entities.get(query.secondary);
+		if(primary == null || (query.type != RAY && secondary == null)){
+			return Result.failed(query.id);
+		}
+
+		try {
+			switch(query.type){
+			case PAIR:
+				if(query.detector < BUBBLE || query.detector > PRIMITIVE){
+					return Result.unsupported(query.id);
+				}
+				return Result.hit(query.id, pairCollide(query.detector, primary, secondary));
+			case SWEEP:
+				return Result.hit(query.id, CollisionDetector.sweepCollide(primary, query.vector, secondary));
+			case RAY:
+				float distance = CollisionDetector.rayCast(primary, query.origin, query.vector, query.maxDistance);
+				return new Result(query.id, Result.OK, distance >= 0, distance);
+			default:
+				return Result.failed(query.id);
+			}
+		} catch (RuntimeException e) {
+			return Result.failed(query.id);
+		}
+
+	}
+
+
+	private static boolean pairCollide(byte detector, Entity primary, Entity secondary){
+
+		switch(detector){
+		case BUBBLE:
+			return CollisionDetector.bubbleCollide(primary, secondary);
+		case BOX:
+			return CollisionDetector.boxCollide(primary, secondary);
+		case HULL:
+			return CollisionDetector.hullCollide(primary, secondary);
+		case PRIMITIVE:
+			return CollisionDetector.primitiveCollide(primary, secondary);
+		case HYPERPLANE:
+			return CollisionDetector.hyperplaneCollide(primary, secondary);
+		default:
+			throw new IllegalArgumentException("Unknown detector " + detector);
+		}
+
+	}
+
+
+	/**
+	 * A question about the geometry held by the service. The id is chosen by the client and is copied
+	 * to the result, so results can be matched to queries in whatever order they arrive.
+	 *
+	 * @author CAISBlogss
+	 *
+	 */
+	public static class Query {
+
+		private int id;
+		private byte type;
+		private byte detector;
+		private int primary;
+		private int secondary;
+		private Vector3f origin;
+		private Vector3f vector;
+		private float maxDistance;
+
+		private Query(int id, byte type){
+			this.id = id;
+			this.type = type;
+		}
+
+		/**
+		 * @param detector
+		 * 				- One of {@link CollisionService#BUBBLE}, {@link CollisionService#BOX}, {@link CollisionService#HYPERPLANE},
+		 * 				{@link CollisionService#HULL} or {@link CollisionService#PRIMITIVE}.
+		 */
+		public static Query pair(int id, int primary, int secondary, byte detector){
+			Query query = new Query(id, PAIR);
+			query.primary = primary;
+			query.secondary = secondary;
+			query.detector = detector;
+			return query;
+		}
+
+		public static Query sweep(int id, int primary, Vector3f velocity, int secondary){
+			Query query = new Query(id, SWEEP);
+			query.primary = primary;
+			query.vector = velocity;
+			query.secondary = secondary;
+			return query;
+		}
+
+		public static Query ray(int id, int target, Vector3f origin, Vector3f direction, float maxDistance){
+			Query query = new Query(id, RAY);
+			query.primary = target;
+			query.origin = origin;
+			query.vector = direction;
+			query.maxDistance = maxDistance;
+			return query;
+		}
+
+		public int getId() {
+			return id;
+		}
+
+		/**
+		 * The same query under a different id, used by clients that number queries as they are sent.
+		 */
+		public Query withId(int newId){
+			Query query = new Query(newId, type);
+			query.detector = detector;
+			query.primary = primary;
+			query.secondary = secondary;
+			query.origin = origin;
+			query.vector = vector;
+			query.maxDistance = maxDistance;
+			return query;
+		}
+
+		/**
+		 * Writes the query as: int id, byte type, then
+		 * for PAIR int primary, int secondary, byte detector;
+		 * for SWEEP int primary, 3 floats velocity, int secondary;
+		 * for RAY int target, 3 floats origin, 3 floats direction, float maxDistance.
+		 */
+		public void write(DataOutputStream out) throws IOException {
+
+			out.writeInt(id);
+			out.writeByte(type);
+			switch(type){
+			case PAIR:
+				out.writeInt(primary);
+				out.writeInt(secondary);
+				out.writeByte(detector);
+				break;
+			case SWEEP:
+				out.writeInt(primary);
+				writeVector(out, vector);
+				out.writeInt(secondary);
+				break;
+			case RAY:
+				out.writeInt(primary);
+				writeVector(out, origin);
+				writeVector(out, vector);
+				out.writeFloat(maxDistance);
+				break;
+			}
+
+		}
+
+		public static Query read(DataInputStream in) throws IOException {
+
+			int id = in.readInt();
+			byte type = in.readByte();
+			switch(type){
+			case PAIR:
+				return pair(id, in.readInt(), in.readInt(), in.readByte());
+			case SWEEP:
+				return sweep(id, in.readInt(), readVector(in), in.readInt());
+			case RAY:
+				return ray(id, in.readInt(), readVector(in), readVector(in), in.readFloat());
+			default:
+				throw new IOException("Unknown query type " + type);
+			}
+
+		}
+	}
+
+
+	/**
+	 * The answer to a {@link Query}.
+	 *
+	 * @author CAISBlogss
+	 *
+	 */
+	public static class Result {
+
+		/** The query was answered */
+		public static final byte OK = 0;
+		/** The query named an entity that is not registered, or its detector failed */
+		public static final byte FAILED = 1;
+		/** The query asked for a detector the service does not have */
+		public static final byte UNSUPPORTED = 2;
+
+		private int id;
+		private byte status;
+		private boolean hit;
+		private float distance;
+
+		public Result(int id, byte status, boolean hit, float distance){
+			this.id = id;
+			this.status = status;
+			this.hit = hit;
+			this.distance = distance;
+		}
+
+		private static Result hit(int id, boolean hit){
+			return new Result(id, OK, hit, -1);
+		}
+
+		private static Result failed(int id){
+			return new Result(id, FAILED, false, -1);
+		}
+
+		private static Result unsupported(int id){
+			return new Result(id, UNSUPPORTED, false, -1);
+		}
+
+		public int getId() {
+			return id;
+		}
+
+		public byte getStatus() {
+			return status;
+		}
+
+		/**
+		 * @return
+		 * 				- The collision state: true if there is a collision (or the ray hit), false if not.
+		 */
+		public boolean isHit() {
+			return hit;
+		}
+
+		/**
+		 * @return
+		 * 				- The distance along a ray to its hit, -1 for other queries or a missed ray.
+		 */
+		public float getDistance() {
+			return distance;
+		}
+
+		/**
+		 * Writes the result as: int id, byte status, byte hit, float distance.
+		 */
+		public void write(DataOutputStream out) throws IOException {
+			out.writeInt(id);
+			out.writeByte(status);
+			out.writeByte(hit ? 1 : 0);
+			out.writeFloat(distance);
+		}
+
+		public static Result read(DataInputStream in) throws IOException {
+			return new Result(in.readInt(), in.readByte(), in.readByte() != 0, in.readFloat());
+		}
+	}
+
+
+	private static void writeVector(DataOutputStream out, Vector3f v) throws IOException {
+		out.writeFloat(v.x);
+		out.writeFloat(v.y);
+		out.writeFloat(v.z);
+	}
+
+	private static Vector3f readVector(DataInputStream in) throws IOException {
+		return new Vector3f(in.readFloat(), in.readFloat(), in.readFloat());
+	}
+
+}
@@ -0,0 +1,139 @@
+package com.tut.tutorial;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.tut.prerequesits.Vector3f;
+
+public class CollisionServiceTest {
+
+	private static CollisionService createService(ExecutorService executor){
+
+		CollisionService service = new CollisionService(executor);
+		service.register(0, TestShapes.cube(0, 0, 0));
+		service.register(1, TestShapes.cube(5, 0, 0));
+		return service;
+
+	}
+
+	private static CollisionService.Result ask(CollisionClient client, CollisionService.Query query) throws Exception {
+
+		CompletableFuture<CollisionService.Result> result = client.submit(query);
+		client.flush();
+		return result.get(5, TimeUnit.SECONDS);
+
+	}
+
+
+	@Test
+	public void sweepQueryIsAnsweredOverSocket() throws Exception {
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		CollisionService service = createService(executor);
+		try (CollisionServer server = new CollisionServer(service, 0);
+				CollisionClient client = new SocketCollisionClient(server.getPort())){
+
+			CollisionService.Result towards = ask(client, CollisionService.Query.sweep(0, 0, new Vector3f(8, 0, 0), 1));
+			assertEquals(CollisionService.Result.OK, towards.getStatus());
+			assertTrue(towards.isHit());
+
+			CollisionService.Result away = ask(client, CollisionService.Query.sweep(0, 0, new Vector3f(-8, 0, 0), 1));
+			assertEquals(CollisionService.Result.OK, away.getStatus());
+			assertFalse(away.isHit());
+
+		} finally {
+			executor.shutdown();
+		}
+
+	}
+
+	@Test
+	public void sweepQueryMatchesLocalClient() throws Exception {
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		CollisionService service = createService(executor);
+		try (CollisionServer server = new CollisionServer(service, 0);
+				CollisionClient remote = new SocketCollisionClient(server.getPort());
+				CollisionClient local = new LocalCollisionClient(service)){
+
+			for(float x = -8; x <= 8; x += 2){
+				CollisionService.Query query = CollisionService.Query.sweep(0, 0, new Vector3f(x, 0, 0), 1);
+				assertEquals("velocity " + x, ask(local, query).isHit(), ask(remote, query).isHit());
+			}
+
+		} finally {
+			executor.shutdown();
+		}
+
+	}
+
+	@Test
+	public void unknownDetectorIsUnsupported() throws Exception {
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try (CollisionClient client = new LocalCollisionClient(createService(executor))){
+
+			CollisionService.Result result = ask(client, CollisionService.Query.pair(0, 0, 1, (byte) 42));
+			assertEquals(CollisionService.Result.UNSUPPORTED, result.getStatus());
+			assertFalse(result.isHit());
+
+		} finally {
+			executor.shutdown();
+		}
+
+	}
+
+	@Test
+	public void closingServerClosesConnections() throws Exception {
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		CollisionServer server = new CollisionServer(createService(executor), 0);
+		try (CollisionClient client = new SocketCollisionClient(server.getPort())){
+
+			ask(client, CollisionService.Query.pair(0, 0, 1, CollisionService.BOX));
+			assertEquals(1, server.getConnectionCount());
+			server.close();
+			assertEquals(0, server.getConnectionCount());
+
+			// The client sees the connection end rather than waiting forever
+			try {
+				ask(client, CollisionService.Query.pair(0, 0, 1, CollisionService.BOX));
+				fail("Query answered after the server closed");
+			} catch (ExecutionException e) {
+				// Expected
+			}
+
+			for(int wait = 0; wait < 50 && readerThreads() > 0; wait++){
+				Thread.sleep(20);
+			}
+			assertEquals(0, readerThreads());
+
+		} finally {
+			executor.shutdown();
+		}
+
+	}
+
+	private static int readerThreads(){
+
+		int count = 0;
+		for(Thread thread : Thread.getAllStackTraces().keySet()){
+			if(thread.getName().equals("collision-server-connection") && thread.isAlive()){
+				count++;
+			}
+		}
+		return count;
+
+	}
+
+}
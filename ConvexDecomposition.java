@@ -0,0 +1,220 @@
+package com.tut.tutorial;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ *
+ * Splits a concave model into a small number of convex hulls so that the {@link HyperPlaneDetector},
+ * which is only exact for convex shapes, can be run on each part. Only the vertices on each hull are
+ * kept, so interior vertices of the model never reach the detector.
+ *
+ * The decomposition is approximate. The triangles of the model are split in two across the longest
+ * axis of their bounds, and each half is wrapped in its own hull. How concave a part is, is measured
+ * as the deepest any of its triangles sits inside its hull: a convex part has every triangle on its
+ * hull's surface. The most concave part is split again until every part is within the allowed
+ * concavity or the part budget is used up.
+ *
+ * This is too slow to run every tick, it should be run once when models are loaded (see
+ * {@link #preprocess(Collection, int, float)}) or offline, storing the hulls with the model and
+ * restoring them with {@link ConvexHull#ConvexHull(float[], int[])}.
+ *
+ * @author CAISBlogss
+ *
+ */
+public class ConvexDecomposition {
+
+
+	/**
+	 * Decomposes every entity and stores the parts on it, ready for {@link HyperPlaneDetector#doesCollideHulls(Entity, Entity)}.
+	 *
+	 * @param entities
+	 * 				- The entities to decompose.
+	 * @param maxParts
+	 * 				- The largest number of hulls any one entity may be split into, 1 gives the single convex hull.
+	 * @param concavity
+	 * 				- The allowed concavity of a part, as a fraction of the size of the model.
+	 */
+	public static void preprocess(Collection<Entity> entities, int maxParts, float concavity){
+		for(Entity e : entities){
+			e.setHullParts(decompose(e, maxParts, concavity));
+		}
+	}
+
+
+	/**
+	 * Splits the model of the entity into convex hulls.
+	 *
+	 * @param e
+	 * 				- The entity to decompose.
+	 * @param maxParts
+	 * 				- The largest number of hulls to split into, 1 gives the single convex hull.
+	 * @param concavity
+	 * 				- The allowed concavity of a part, as a fraction of the length of the diagonal of the model's bounds.
+	 *
+	 * @return
+	 * 				- The hulls that together cover the model.
+	 */
+	public static ConvexHull[] decompose(Entity e, int maxParts, float concavity){
+
+		float[] vertices = e.getVertices();
+		int[] indices = e.getIndices();
+
+		float[] bounds = e.getLocalBounds();
+		float diagonal = (float) Math.sqrt(((bounds[1] - bounds[0]) * (bounds[1] - bounds[0]))
+				+ ((bounds[3] - bounds[2]) * (bounds[3] - bounds[2]))
+				+ ((bounds[5] - bounds[4]) * (bounds[5] - bounds[4])));
+		float allowed = concavity * diagonal;
+
+		int[] all = new int[indices.length/3];
+		for(int i = 0; i < all.length; i++){
+			all[i] = i;
+		}
+
+		List<Part> parts = new ArrayList<Part>();
+		parts.add(new Part(vertices, indices, all));
+
+		while(parts.size() < maxParts){
+
+			Part worst = parts.get(0);
+			for(Part part : parts){
+				if(part.concavity > worst.concavity){
+					worst = part;
+				}
+			}
+			if(worst.concavity <= allowed || worst.triangles.length < 2){
+				break;
+			}
+
+			parts.remove(worst);
+			for(int[] half : split(vertices, indices, worst.triangles)){
+				parts.add(new Part(vertices, indices, half));
+			}
+		}
+
+		ConvexHull[] hulls = new ConvexHull[parts.size()];
+		for(int i = 0; i < hulls.length; i++){
+			hulls[i] = parts.get(i).hull;
+		}
+		return hulls;
+
+	}
+
+
+	/**
+	 * Splits a group of triangles in two by the position of their centres along the longest axis of the group's bounds.
+	 *
+	 * @return
+	 * 				- Two non-empty groups of triangles.
+	 */
+	private static int[][] split(float[] vertices, int[] indices, int[] triangles){
+
+		float[][] centres = new float[triangles.length][];
+		float[] min = new float[]{Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE};
+		float[] max = new float[]{-Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+
+		for(int i = 0; i < triangles.length; i++){
+			centres[i] = centre(vertices, indices, triangles[i]);
+			for(int axis = 0; axis < 3; axis++){
+				min[axis] = Math.min(min[axis], centres[i][axis]);
+				max[axis] = Math.max(max[axis], centres[i][axis]);
+			}
+		}
+
+		int longest = 0;
+		for(int axis = 1; axis < 3; axis++){
+			if(max[axis] - min[axis] > max[longest] - min[longest]){
+				longest = axis;
+			}
+		}
+
+		float mean = 0;
+		for(float[] centre : centres){
+			mean += centre[longest] / triangles.length;
+		}
+
+		List<Integer> below = new ArrayList<Integer>();
+		List<Integer> above = new ArrayList<Integer>();
+		for(int i = 0; i < triangles.length; i++){
+			if(centres[i][longest] < mean){
+				below.add(triangles[i]);
+			} else {
+				above.add(triangles[i]);
+			}
+		}
+
+		// Every centre in the same place gives no split along the axis, so halve the group instead
+		if(below.isEmpty() || above.isEmpty()){
+			below.clear();
+			above.clear();
+			for(int i = 0; i < triangles.length; i++){
+				(i < triangles.length/2 ? below : above).add(triangles[i]);
+			}
+		}
+
+		return new int[][]{toArray(below), toArray(above)};
+
+	}
+
+
+	private static float[] centre(float[] vertices, int[] indices, int triangle){
+
+		float[] centre = new float[3];
+		for(int j = 0; j < 3; j++){
+			int vertex = indices[(3 * triangle) + j];
+			for(int axis = 0; axis < 3; axis++){
+				centre[axis] += vertices[(3 * vertex) + axis] / 3f;
+			}
+		}
+		return centre;
+
+	}
+
+	private static int[] toArray(List<Integer> list){
+
+		int[] array = new int[list.size()];
+		for(int i = 0; i < array.length; i++){
+			array[i] = list.get(i);
+		}
+		return array;
+
+	}
+
+
+	/**
+	 * A group of the model's triangles, with the hull around them and how far the group falls short of being convex.
+	 *
+	 * @author CAISBlogss
+	 *
+	 */
+	private static class Part{
+
+		int[] triangles;
+		ConvexHull hull;
+		float concavity;
+
+		protected Part(float[] vertices, int[] indices, int[] triangles){
+
+			this.triangles = triangles;
+
+			float[] points = new float[triangles.length * 9];
+			for(int i = 0; i < triangles.length; i++){
+				for(int j = 0; j < 3; j++){
+					int vertex = indices[(3 * triangles[i]) + j];
+					points[(9 * i) + (3 * j)] = vertices[3 * vertex];
+					points[(9 * i) + (3 * j) + 1] = vertices[(3 * vertex) + 1];
+					points[(9 * i) + (3 * j) + 2] = vertices[(3 * vertex) + 2];
+				}
+			}
+			// A group of triangles on one plane would give a hull with no faces, which nothing could be separated from
+			hull = ConvexHull.solid(points);
+
+			for(int i = 0; i < triangles.length; i++){
+				float[] centre = centre(vertices, indices, triangles[i]);
+				concavity = Math.max(concavity, hull.depthOf(centre[0], centre[1], centre[2]));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,67 @@
+package com.tut.tutorial;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.tut.prerequesits.Vector3f;
+
+public class ConvexDecompositionTest {
+
+	/** A cube around the origin and, ten units along x, a flat square on its own */
+	private static final float[] CUBE_AND_QUAD = new float[TestShapes.CUBE.length + TestShapes.QUAD.length];
+	private static final int[] CUBE_AND_QUAD_INDICES = new int[TestShapes.CUBE_INDICES.length + TestShapes.QUAD_INDICES.length];
+
+	static {
+		System.arraycopy(TestShapes.CUBE, 0, CUBE_AND_QUAD, 0, TestShapes.CUBE.length);
+		for(int i = 0; i < TestShapes.QUAD.length; i++){
+			CUBE_AND_QUAD[TestShapes.CUBE.length + i] = TestShapes.QUAD[i] + (i % 3 == 0 ? 10 : 0);
+		}
+		System.arraycopy(TestShapes.CUBE_INDICES, 0, CUBE_AND_QUAD_INDICES, 0, TestShapes.CUBE_INDICES.length);
+		for(int i = 0; i < TestShapes.QUAD_INDICES.length; i++){
+			CUBE_AND_QUAD_INDICES[TestShapes.CUBE_INDICES.length + i] = TestShapes.QUAD_INDICES[i] + (TestShapes.CUBE.length / 3);
+		}
+	}
+
+
+	private static Entity cubeAndQuad(float x){
+		Entity e = new Entity(new Vector3f(x, 0, 0), 0, 0, 0, 1, CUBE_AND_QUAD, TestShapes.CUBE_NORMALS, CUBE_AND_QUAD_INDICES);
+		e.setHullParts(ConvexDecomposition.decompose(e, 2, 0));
+		return e;
+	}
+
+
+	@Test
+	public void flatModelsOnlyCollideWhenTheyMeet() {
+
+		assertFalse(HyperPlaneDetector.doesCollideHulls(TestShapes.quad(0, 0, 0), TestShapes.quad(0, 5, 0)));
+		assertFalse(HyperPlaneDetector.doesCollideHulls(TestShapes.quad(0, 0, 0), TestShapes.quad(5, 0, 0)));
+		assertTrue(HyperPlaneDetector.doesCollideHulls(TestShapes.quad(0, 0, 0), TestShapes.quad(1, 0, 0)));
+
+	}
+
+	@Test
+	public void flatPartsHaveFaces() {
+
+		ConvexHull[] parts = cubeAndQuad(0).getHullParts();
+		assertEquals(2, parts.length);
+		for(ConvexHull part : parts){
+			assertTrue(part.getIndices().length > 0);
+			assertTrue(part.getNormals().length > 0);
+		}
+
+	}
+
+	@Test
+	public void flatPartsDoNotAlwaysCollide() {
+
+		// Nothing meets: the second entity's cube is twenty units past the first entity's square
+		assertFalse(HyperPlaneDetector.doesCollideHulls(cubeAndQuad(0), cubeAndQuad(30)));
+		// The second entity's cube sits on the first entity's square
+		assertTrue(HyperPlaneDetector.doesCollideHulls(cubeAndQuad(0), cubeAndQuad(10)));
+
+	}
+
+}
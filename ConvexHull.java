@@ -0,0 +1,501 @@
+package com.tut.tutorial;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *
+ * Builds the convex hull of a soup of model space vertices using the quickhull algorithm.
+ * Starting from a tetrahedron of extreme points, every face keeps the list of points that
+ * lie in front of it. The furthest of these points is repeatedly added to the hull: every
+ * face it can see is removed and the hole left behind (the horizon) is patched with new
+ * faces joined to the point. When no face has any points left in front of it the hull is complete.
+ *
+ * Any point that is not a hull vertex can never be the extreme point of the shape along
+ * any direction, so the hull vertices alone are enough to find exact bounds of the model
+ * in any orientation.
+ *
+ * @author CAISBlogss
+ *
+ */
+public class ConvexHull {
+
+	/** The thickness given to flat point sets by {@link #solid(float[])}, as a fraction of their size */
+	private static final float THICKNESS = 1e-3f;
+
+	private float[] vertices;
+	private int[] indices;
+	private float[] normals;
+	private float[] planes;
+
+
+	/**
+	 * Builds the hull of the given vertices. The input is read as {x, y, z, x, y, z...} in
+	 * the same way as {@link Entity#getVertices()}.
+	 *
+	 * @param points
+	 * 				- The vertices to wrap.
+	 */
+	public ConvexHull(float[] points){
+		build(points);
+		findPlanes();
+	}
+
+
+	/**
+	 * Restores a hull that was built earlier, for example one stored alongside the model by an offline tool,
+	 * without running the algorithm again.
+	 *
+	 * @param vertices
+	 * 				- The hull vertices as returned by {@link #getVertices()}.
+	 * @param indices
+	 * 				- The hull triangles as returned by {@link #getIndices()}.
+	 */
+	public ConvexHull(float[] vertices, int[] indices){
+		this.vertices = vertices;
+		this.indices = indices;
+		findPlanes();
+	}
+
+
+	/**
+	 * Builds the hull of the given vertices, making sure it has faces. Points that all lie on one plane, line or
+	 * point have no volume, so their hull would have no faces and no normals to separate it from anything. Such
+	 * points are instead spread by a small thickness along each axis, giving a thin slab around them.
+	 *
+	 * @param points
+	 * 				- The vertices to wrap.
+	 *
+	 * @return
+	 * 				- A hull with at least four faces.
+	 */
+	public static ConvexHull solid(float[] points){
+
+		ConvexHull hull = new ConvexHull(points);
+		if(hull.indices.length > 0 || points.length == 0){
+			return hull;
+		}
+
+		float[] min = new float[]{Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE};
+		float[] max = new float[]{-Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+		for(int i = 0; i < points.length; i++){
+			min[i % 3] = Math.min(min[i % 3], points[i]);
+			max[i % 3] = Math.max(max[i % 3], points[i]);
+		}
+		float size = (float) Math.sqrt(((max[0] - min[0]) * (max[0] - min[0])) + ((max[1] - min[1]) * (max[1] - min[1])) + ((max[2] - min[2]) * (max[2] - min[2])));
+		// A single point has no size to scale by, so is treated as one unit across
+		float thickness = THICKNESS * Math.max(size, 1);
+
+		float[] spread = new float[points.length * 6];
+		for(int i = 0; i < points.length/3; i++){
+			for(int axis = 0; axis < 3; axis++){
+				for(int side = 0; side < 2; side++){
+					int root = 3 * ((6 * i) + (2 * axis) + side);
+					spread[root] = points[3 * i];
+					spread[root + 1] = points[(3 * i) + 1];
+					spread[root + 2] = points[(3 * i) + 2];
+					spread[root + axis] += side == 0 ? -thickness : thickness;
+				}
+			}
+		}
+		return new ConvexHull(spread);
+
+	}
+
+
+	/**
+	 * @return
+	 * 			- The vertices that lie on the hull, stored {x, y, z, x, y, z...}
+	 */
+	public float[] getVertices() {
+		return vertices;
+	}
+
+
+	/**
+	 * @return
+	 * 			- The triangles of the hull as indices into {@link #getVertices()}, wound anti-clockwise when seen from outside.
+	 */
+	public int[] getIndices() {
+		return indices;
+	}
+
+
+	/**
+	 * @return
+	 * 			- The outward normal of every face with distinct orientation, stored {x, y, z, x, y, z...}. Coplanar triangles share a single normal.
+	 */
+	public float[] getNormals() {
+		return normals;
+	}
+
+
+	/**
+	 * How far a point is inside the hull, measured to the nearest face plane. Points outside the hull give a negative value.
+	 *
+	 * @return
+	 * 			- The distance from the point to the surface of the hull, positive inside.
+	 */
+	public float depthOf(float x, float y, float z){
+
+		float depth = Float.MAX_VALUE;
+		for(int i = 0; i < planes.length/4; i++){
+			float distance = -((planes[4 * i] * x) + (planes[(4 * i) + 1] * y) + (planes[(4 * i) + 2] * z) + planes[(4 * i) + 3]);
+			depth = Math.min(depth, distance);
+		}
+		return planes.length == 0 ? 0 : depth;
+	}
+
+
+	/**
+	 * Finds the plane of every face, stored {a, b, c, d} for the plane ax + by + cz + d = 0, and the set of distinct face normals.
+	 */
+	private void findPlanes(){
+
+		planes = new float[(indices.length/3) * 4];
+		List<float[]> distinct = new ArrayList<float[]>();
+
+		for(int i = 0; i < indices.length/3; i++){
+
+			Face face = new Face(vertices, indices[3 * i], indices[(3 * i) + 1], indices[(3 * i) + 2]);
+			planes[4 * i] = face.nx;
+			planes[(4 * i) + 1] = face.ny;
+			planes[(4 * i) + 2] = face.nz;
+			planes[(4 * i) + 3] = face.offset;
+
+			boolean seen = false;
+			for(float[] normal : distinct){
+				if((normal[0] * face.nx) + (normal[1] * face.ny) + (normal[2] * face.nz) > 1 - 1e-5f){
+					seen = true;
+					break;
+				}
+			}
+			if(!seen){
+				distinct.add(new float[]{face.nx, face.ny, face.nz});
+			}
+		}
+
+		normals = new float[distinct.size() * 3];
+		for(int i = 0; i < distinct.size(); i++){
+			normals[3 * i] = distinct.get(i)[0];
+			normals[(3 * i) + 1] = distinct.get(i)[1];
+			normals[(3 * i) + 2] = distinct.get(i)[2];
+		}
+	}
+
+
+	/**
+	 * Runs the quickhull algorithm. Degenerate inputs (fewer than four points, or points that are all
+	 * on one line or plane) have no volume, so every distinct input point is kept as a hull vertex and no faces are made.
+	 *
+	 * @param points
+	 * 				- The vertices to wrap.
+	 */
+	private void build(float[] points){
+
+		int count = points.length/3;
+		float epsilon = findEpsilon(points);
+		int[] start = findStartingPoints(points, epsilon);
+
+		if(start == null){
+			vertices = points.clone();
+			indices = new int[0];
+			return;
+		}
+
+		List<Face> faces = new ArrayList<Face>();
+
+		// Wind the starting tetrahedron so that every face points away from the remaining vertex
+		int a = start[0], b = start[1], c = start[2], d = start[3];
+		if(new Face(points, a, b, c).distanceTo(points, d) > 0){
+			int temp = b;
+			b = c;
+			c = temp;
+		}
+		faces.add(new Face(points, a, b, c));
+		faces.add(new Face(points, a, d, b));
+		faces.add(new Face(points, b, d, c));
+		faces.add(new Face(points, c, d, a));
+
+		// Every other point is assigned to the first face it lies in front of, points behind all faces are inside and dropped
+		for(int i = 0; i < count; i++){
+			if(i == a || i == b || i == c || i == d){
+				continue;
+			}
+			assign(points, faces, i, epsilon);
+		}
+
+		Face next = findFaceWithPoints(faces);
+		while(next != null){
+
+			int eye = next.furthestPoint(points);
+
+			List<Face> visible = new ArrayList<Face>();
+			for(Face face : faces){
+				if(face.distanceTo(points, eye) > epsilon){
+					visible.add(face);
+				}
+			}
+
+			// The horizon is every edge of a visible face that is not shared with another visible face
+			List<int[]> horizon = new ArrayList<int[]>();
+			for(Face face : visible){
+				for(int j = 0; j < 3; j++){
+					int from = face.corners[j];
+					int to = face.corners[(j + 1) % 3];
+					if(!hasEdge(visible, to, from)){
+						horizon.add(new int[]{from, to});
+					}
+				}
+			}
+
+			List<Integer> orphans = new ArrayList<Integer>();
+			for(Face face : visible){
+				orphans.addAll(face.outside);
+			}
+			faces.removeAll(visible);
+
+			List<Face> created = new ArrayList<Face>();
+			for(int[] edge : horizon){
+				created.add(new Face(points, edge[0], edge[1], eye));
+			}
+			faces.addAll(created);
+
+			for(int orphan : orphans){
+				if(orphan != eye){
+					assign(points, created, orphan, epsilon);
+				}
+			}
+
+			next = findFaceWithPoints(faces);
+		}
+
+		compact(points, faces, count);
+
+	}
+
+
+	/**
+	 * Re-indexes the hull so that only points used by a face are stored.
+	 *
+	 * @param points
+	 * 				- The original vertices.
+	 * @param faces
+	 * 				- The final faces of the hull.
+	 * @param count
+	 * 				- The number of original vertices.
+	 */
+	private void compact(float[] points, List<Face> faces, int count){
+
+		int[] remap = new int[count];
+		for(int i = 0; i < count; i++){
+			remap[i] = -1;
+		}
+
+		int used = 0;
+		indices = new int[faces.size() * 3];
+		for(int i = 0; i < faces.size(); i++){
+			for(int j = 0; j < 3; j++){
+				int corner = faces.get(i).corners[j];
+				if(remap[corner] == -1){
+					remap[corner] = used++;
+				}
+				indices[(3 * i) + j] = remap[corner];
+			}
+		}
+
+		vertices = new float[used * 3];
+		for(int i = 0; i < count; i++){
+			if(remap[i] != -1){
+				vertices[3 * remap[i]] = points[3 * i];
+				vertices[(3 * remap[i]) + 1] = points[(3 * i) + 1];
+				vertices[(3 * remap[i]) + 2] = points[(3 * i) + 2];
+			}
+		}
+	}
+
+
+	/**
+	 * Adds a point to the outside set of the first face it lies in front of.
+	 */
+	private static void assign(float[] points, List<Face> faces, int point, float epsilon){
+		for(Face face : faces){
+			if(face.distanceTo(points, point) > epsilon){
+				face.outside.add(point);
+				return;
+			}
+		}
+	}
+
+
+	private static Face findFaceWithPoints(List<Face> faces){
+		for(Face face : faces){
+			if(!face.outside.isEmpty()){
+				return face;
+			}
+		}
+		return null;
+	}
+
+
+	/**
+	 * Is the directed edge from -> to part of any of the given faces
+	 */
+	private static boolean hasEdge(List<Face> faces, int from, int to){
+		for(Face face : faces){
+			for(int j = 0; j < 3; j++){
+				if(face.corners[j] == from && face.corners[(j + 1) % 3] == to){
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+
+	/**
+	 * A tolerance scaled to the size of the model, so that points that are coplanar up to rounding
+	 * error are not treated as being outside the hull.
+	 */
+	private static float findEpsilon(float[] points){
+
+		float largest = 0;
+		for(int i = 0; i < points.length; i++){
+			largest = Math.max(largest, Math.abs(points[i]));
+		}
+		return 3 * largest * 1e-6f;
+	}
+
+
+	/**
+	 * Finds four points that make a tetrahedron with volume: the two points furthest apart along an axis,
+	 * the point furthest from the line between them, and the point furthest from the plane through all three.
+	 *
+	 * @return
+	 * 			- The indices of the four points, or null if the points are degenerate.
+	 */
+	private static int[] findStartingPoints(float[] points, float epsilon){
+
+		int count = points.length/3;
+		if(count < 4){
+			return null;
+		}
+
+		// Extreme points on each axis, the pair furthest apart is the first edge
+		int a = 0, b = 0;
+		float widest = -1;
+		for(int axis = 0; axis < 3; axis++){
+			int min = 0, max = 0;
+			for(int i = 1; i < count; i++){
+				if(points[(3 * i) + axis] < points[(3 * min) + axis]){
+					min = i;
+				}
+				if(points[(3 * i) + axis] > points[(3 * max) + axis]){
+					max = i;
+				}
+			}
+			float width = points[(3 * max) + axis] - points[(3 * min) + axis];
+			if(width > widest){
+				widest = width;
+				a = min;
+				b = max;
+			}
+		}
+		if(widest <= epsilon){
+			return null;
+		}
+
+		float ex = points[3 * b] - points[3 * a];
+		float ey = points[(3 * b) + 1] - points[(3 * a) + 1];
+		float ez = points[(3 * b) + 2] - points[(3 * a) + 2];
+
+		int c = -1;
+		float furthest = epsilon * epsilon;
+		for(int i = 0; i < count; i++){
+			float px = points[3 * i] - points[3 * a];
+			float py = points[(3 * i) + 1] - points[(3 * a) + 1];
+			float pz = points[(3 * i) + 2] - points[(3 * a) + 2];
+			float cx = (ey * pz) - (ez * py);
+			float cy = (ez * px) - (ex * pz);
+			float cz = (ex * py) - (ey * px);
+			float distance = ((cx * cx) + (cy * cy) + (cz * cz)) / ((ex * ex) + (ey * ey) + (ez * ez));
+			if(distance > furthest){
+				furthest = distance;
+				c = i;
+			}
+		}
+		if(c == -1){
+			return null;
+		}
+
+		Face base = new Face(points, a, b, c);
+		int d = -1;
+		furthest = epsilon;
+		for(int i = 0; i < count; i++){
+			float distance = Math.abs(base.distanceTo(points, i));
+			if(distance > furthest){
+				furthest = distance;
+				d = i;
+			}
+		}
+		if(d == -1){
+			return null;
+		}
+
+		return new int[]{a, b, c, d};
+	}
+
+
+	/**
+	 * A triangle of the hull under construction, stored as the plane it lies on along with the
+	 * points that can still be seen from its front.
+	 *
+	 * @author CAISBlogss
+	 *
+	 */
+	private static class Face{
+
+		int[] corners;
+		float nx, ny, nz, offset;
+		List<Integer> outside = new ArrayList<Integer>();
+
+		protected Face(float[] points, int a, int b, int c){
+
+			corners = new int[]{a, b, c};
+			float ux = points[3 * b] - points[3 * a];
+			float uy = points[(3 * b) + 1] - points[(3 * a) + 1];
+			float uz = points[(3 * b) + 2] - points[(3 * a) + 2];
+			float vx = points[3 * c] - points[3 * a];
+			float vy = points[(3 * c) + 1] - points[(3 * a) + 1];
+			float vz = points[(3 * c) + 2] - points[(3 * a) + 2];
+			nx = (uy * vz) - (uz * vy);
+			ny = (uz * vx) - (ux * vz);
+			nz = (ux * vy) - (uy * vx);
+			float length = (float) Math.sqrt((nx * nx) + (ny * ny) + (nz * nz));
+			if(length > 0){
+				nx /= length;
+				ny /= length;
+				nz /= length;
+			}
+			offset = -((nx * points[3 * a]) + (ny * points[(3 * a) + 1]) + (nz * points[(3 * a) + 2]));
+		}
+
+		/**
+		 * The signed distance from the face's plane to a point, positive in front of the face
+		 */
+		protected float distanceTo(float[] points, int point){
+			return (nx * points[3 * point]) + (ny * points[(3 * point) + 1]) + (nz * points[(3 * point) + 2]) + offset;
+		}
+
+		protected int furthestPoint(float[] points){
+			int furthest = outside.get(0);
+			for(int point : outside){
+				if(distanceTo(points, point) > distanceTo(points, furthest)){
+					furthest = point;
+				}
+			}
+			return furthest;
+		}
+	}
+
+}
@@ -4,8 +4,20 @@ import com.tut.prerequesits.Vector3f;
 
 public class Entity{
 
+	/**
+	 * How an entity moves, see {@link CollisionFilter}.
+	 */
+	public enum BodyType {
+		/** Never moves, for example terrain and buildings */
+		STATIC,
+		/** Moves and must be tested against everything it can collide with */
+		DYNAMIC,
+		/** Able to move but currently at rest */
+		SLEEPING
+	}
 	
 	private Vector3f position;
+	private double[] regionOrigin = new double[]{0, 0, 0};
 
 	private float rotX;
 	private float rotY;
@@ -17,6 +29,21 @@ public class Entity{
 	private int[] indices;
 	private float[] normals;
 	
+	private float[] localBounds;
+	private ConvexHull hull;
+	private ConvexHull[] hullParts;
+	private Primitive primitive;
+	
+	private int layer = 1;
+	private int mask = ~0;
+	private BodyType bodyType = BodyType.DYNAMIC;
+	
+	private CollisionLod collisionLod;
+	private CollisionMesh renderMesh;
+	
+	private TransformBatch transformBatch;
+	private int transformSlot;
+	
 
 
 	public Entity(Vector3f position, float rotX, float rotY, float rotZ, float scale, float[] vertices, float[] normals, int[] indices) {
@@ -37,6 +64,43 @@ public class Entity{
 		return position;
 	}
 
+	/**
+	 * The WorldSpace point that {@link #getPosition()} is measured from. Keeping the position small and moving this
+	 * origin instead keeps entities far from the centre of the world precise, see {@link Maths#setLargeWorld(boolean)}.
+	 * 
+	 * @return
+	 * 			- The origin stored {x, y, z}
+	 */
+	public double[] getRegionOrigin() {
+		return regionOrigin;
+	}
+	
+	/**
+	 * Sets the origin the position is measured from, keeping the position as it is, so the entity moves with the origin.
+	 */
+	public void setRegionOrigin(double x, double y, double z) {
+		regionOrigin = new double[]{x, y, z};
+	}
+	
+	/**
+	 * Moves the origin the position is measured from, adjusting the position so the entity stays where it is in the world.
+	 */
+	public void rebase(double x, double y, double z) {
+		position.set(
+				(float) ((regionOrigin[0] - x) + position.x),
+				(float) ((regionOrigin[1] - y) + position.y),
+				(float) ((regionOrigin[2] - z) + position.z));
+		regionOrigin = new double[]{x, y, z};
+	}
+	
+	/**
+	 * @return
+	 * 			- The position of the entity in WorldSpace at double precision, stored {x, y, z}
+	 */
+	public double[] getWorldPosition() {
+		return new double[]{regionOrigin[0] + position.x, regionOrigin[1] + position.y, regionOrigin[2] + position.z};
+	}
+
 	public float getRotX() {
 		return rotX;
 		
@@ -54,6 +118,22 @@ public class Entity{
 		return scale;
 	}
 	
+	public void setRotX(float rotX) {
+		this.rotX = rotX;
+	}
+	
+	public void setRotY(float rotY) {
+		this.rotY = rotY;
+	}
+	
+	public void setRotZ(float rotZ) {
+		this.rotZ = rotZ;
+	}
+	
+	public void setScale(float scale) {
+		this.scale = scale;
+	}
+	
 	public float[] getVertices() {
 		return vertices;
 	}
@@ -65,4 +145,139 @@ public class Entity{
 	public float[] getNormals() {
 		return normals;
 	}
+	
+	/**
+	 * The axis aligned bounding box of the model before any transformation is applied. The vertices of an
+	 * entity never change, so this is found once and cached.
+	 * 
+	 * @return 
+	 * 			- The bounding box to be read as {minX, maxX, minY, maxY, minZ, maxZ}
+	 */
+	public float[] getLocalBounds() {
+		if(localBounds == null){
+			localBounds = BoundingBoxDetector.findLocalBoundingBox(vertices);
+		}
+		return localBounds;
+	}
+	
+	/**
+	 * The convex hull of the model's vertices, built the first time it is needed and cached.
+	 * 
+	 * @return
+	 * 			- The convex hull of the model
+	 */
+	public ConvexHull getHull() {
+		if(hull == null){
+			hull = new ConvexHull(vertices);
+		}
+		return hull;
+	}
+	
+	/**
+	 * The convex parts used in place of the mesh by {@link HyperPlaneDetector#doesCollideHulls(Entity, Entity)}.
+	 * Unless a decomposition has been stored with {@link #setHullParts(ConvexHull[])} this is the single convex hull of the model,
+	 * given a small thickness if the model is flat, see {@link ConvexHull#solid(float[])}.
+	 * 
+	 * @return
+	 * 			- The convex parts of the model
+	 */
+	public ConvexHull[] getHullParts() {
+		if(hullParts == null){
+			hullParts = new ConvexHull[]{getHull().getIndices().length > 0 ? getHull() : ConvexHull.solid(vertices)};
+		}
+		return hullParts;
+	}
+	
+	public void setHullParts(ConvexHull[] hullParts) {
+		this.hullParts = hullParts;
+	}
+	
+	/**
+	 * @return
+	 * 			- The analytic shape used in place of the mesh for collision detection, or null if the mesh is used.
+	 */
+	public Primitive getPrimitive() {
+		return primitive;
+	}
+	
+	public void setPrimitive(Primitive primitive) {
+		this.primitive = primitive;
+	}
+	
+	/**
+	 * @return
+	 * 			- The layers this entity belongs to, one bit per layer.
+	 */
+	public int getLayer() {
+		return layer;
+	}
+	
+	public void setLayer(int layer) {
+		this.layer = layer;
+	}
+	
+	/**
+	 * @return
+	 * 			- The layers this entity collides with, one bit per layer.
+	 */
+	public int getMask() {
+		return mask;
+	}
+	
+	public void setMask(int mask) {
+		this.mask = mask;
+	}
+	
+	public BodyType getBodyType() {
+		return bodyType;
+	}
+	
+	public void setBodyType(BodyType bodyType) {
+		this.bodyType = bodyType;
+	}
+	
+	/**
+	 * @return
+	 * 			- The batch holding this entity's transformation matrix, or null if it is built on each request.
+	 */
+	public TransformBatch getTransformBatch() {
+		return transformBatch;
+	}
+	
+	public int getTransformSlot() {
+		return transformSlot;
+	}
+	
+	/**
+	 * Called by {@link TransformBatch} when it takes or releases the entity.
+	 */
+	public void setTransformSlot(TransformBatch transformBatch, int transformSlot) {
+		this.transformBatch = transformBatch;
+		this.transformSlot = transformSlot;
+	}
+	
+	/**
+	 * The mesh the mesh detectors test with: chosen by distance from the viewer when the entity has
+	 * a {@link CollisionLod}, and the render mesh otherwise.
+	 * 
+	 * @return
+	 * 			- The collision mesh to use now
+	 */
+	public CollisionMesh getCollisionMesh() {
+		if(collisionLod != null){
+			return collisionLod.select(this);
+		}
+		if(renderMesh == null){
+			renderMesh = new CollisionMesh(vertices, normals, indices);
+		}
+		return renderMesh;
+	}
+	
+	public CollisionLod getCollisionLod() {
+		return collisionLod;
+	}
+	
+	public void setCollisionLod(CollisionLod collisionLod) {
+		this.collisionLod = collisionLod;
+	}
 }
@@ -1,11 +1,12 @@
-package com.collision.main;
+package com.tut.tutorial;
 
-import com.collision.utils.Maths;
-import com.collision.utils.Matrix4f;
-import com.collision.utils.Vector3f;
+import com.tut.prerequesits.Vector3f;
 
 public class FauerbyDetector {
 	
+	// The transformation of the entity being swept against, one per thread so sweeps can run in parallel
+	private static final ThreadLocal<float[]> TRANSFORMATION = ThreadLocal.withInitial(() -> new float[16]);
+	
 	/**
 	 * The collision detection engine, will return true if the two entities share an intersection
 	 * 
@@ -31,8 +32,11 @@ public class FauerbyDetector {
 	public static boolean doesCollide(Entity primary, Vector3f velocity, Entity secondary) {
 		
 		
-		// The box that surrounds the first entity, from BoundBoxDetector
-		float[] boundingBox = BoundBoxDetector.findAxisAlignedBoundingBox(primary);
+		// Everything is worked out relative to this point, which keeps the numbers small far from the centre of the world
+		double[] origin = Maths.findPairOrigin(primary, secondary);
+		
+		// The box that surrounds the first entity, from BoundingBoxDetector
+		float[] boundingBox = BoundingBoxDetector.findAxisAlignedBoundingBox(primary, origin);
 		
 		// Take the unit sphere that can be used ot represent the box
 		Vector3f spheroidSpace = calculateSpheroid(boundingBox);
@@ -53,9 +57,11 @@ public class FauerbyDetector {
 		
 		
 		
-		Vector3f[] secondaryShape = verticesToSpheroidWorldSpace(secondary, spheroidSpace);
+		// Chosen once, as the level of detail can change between calls and the vertices and indices must agree
+		CollisionMesh secondaryMesh = secondary.getCollisionMesh();
+		Vector3f[] secondaryShape = verticesToSpheroidWorldSpace(secondary, secondaryMesh, spheroidSpace, origin);
 		
-		int[] indices = secondary.getIndices();
+		int[] indices = secondaryMesh.getIndices();
 		
 		
 		for(int i = 0; i < indices.length/3; i++){
@@ -195,20 +201,25 @@ public class FauerbyDetector {
 	 * Converts the vertices of a given entity to fall within a given translation of 3D space provided by the vector
 	 * 
 	 * @param e  The entity to test
+	 * @param mesh the collision mesh of the entity to convert, which may be a simplified level of detail rather than the render mesh
 	 * @param spheroidSpace a vector containing a translation of 3d space
+	 * @param origin the WorldSpace position the vertices are placed relative to
 	 * @return
 	 */
-	private static Vector3f[] verticesToSpheroidWorldSpace(Entity e, Vector3f spheroidSpace) {
+	private static Vector3f[] verticesToSpheroidWorldSpace(Entity e, CollisionMesh mesh, Vector3f spheroidSpace, double[] origin) {
 		
-		float[] vertices = e.getVertices();
+		float[] vertices = mesh.getVertices();
 		Vector3f[] vecs = new Vector3f[vertices.length/3];
-		Matrix4f transformation = Maths.createTransformationMatrix(e);
+		float[] m = TRANSFORMATION.get();
+		Maths.loadTransformation(e, origin, m, 0);
 		
 		for(int i = 0; i < vertices.length/3; i++){
-			Vector3f worldPosition =  Matrix4f.transform(transformation, new Vector3f(vertices[(3 * i)], vertices[(3 * i) + 1], vertices[(3 * i) + 2]), null);
-			vecs[i] = worldPosition = new Vector3f(worldPosition.x * spheroidSpace.x,
-													worldPosition.y * spheroidSpace.y,
-													worldPosition.z * spheroidSpace.z);
+			float x = vertices[(3 * i)];
+			float y = vertices[(3 * i) + 1];
+			float z = vertices[(3 * i) + 2];
+			vecs[i] = new Vector3f(((m[0] * x) + (m[4] * y) + (m[8] * z) + m[12]) * spheroidSpace.x,
+									((m[1] * x) + (m[5] * y) + (m[9] * z) + m[13]) * spheroidSpace.y,
+									((m[2] * x) + (m[6] * y) + (m[10] * z) + m[14]) * spheroidSpace.z);
 		}
 		return vecs;
 	}
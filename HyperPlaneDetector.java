@@ -3,9 +3,7 @@ package com.tut.tutorial;
 import java.util.ArrayList;
 import java.util.Arrays;
 
-import com.tut.prerequesits.Matrix4f;
 import com.tut.prerequesits.Vector3f;
-import com.tut.prerequesits.Vector4f;
 
 
 /**
@@ -15,17 +13,89 @@ import com.tut.prerequesits.Vector4f;
  * shapes onto the pane defined by its normal gives an intersection. If it does in
  * all cases then a collision has occurred, if not then we say no collision has happened.
  * 
+ * The test is only exact for convex shapes and its cost grows with the number of vertices
+ * and normals, so {@link #doesCollideHulls(Entity, Entity)} runs it on the entities' convex
+ * hull parts instead (see {@link ConvexDecomposition}). {@link #doesCollide(Entity, Entity)} uses each
+ * entity's collision mesh, which may be a simplified level of detail (see {@link CollisionLod}).
+ * 
  * @author CAISBlogss
  *
  */
 
 public class HyperPlaneDetector {
 	
+	// The transformations of the pair being tested, primary then secondary, one pair per thread
+	private static final ThreadLocal<float[]> TRANSFORMATIONS = ThreadLocal.withInitial(() -> new float[32]);
+	
 	public static boolean doesCollide(Entity primary, Entity secondary){
+		return doesCollide(primary, primary.getCollisionMesh(), secondary, secondary.getCollisionMesh());
+	}
+	
+	
+	/**
+	 * Runs the test on meshes already chosen for the two entities, so a caller that has bounded the same
+	 * level of detail with a cheaper test knows this test sees that level too.
+	 * 
+	 * @param primary An entity to check collision. Order insignificant.
+	 * @param primaryMesh the collision mesh of the primary entity to test
+	 * @param secondary Another entity to check collision. Order insignificant.
+	 * @param secondaryMesh the collision mesh of the secondary entity to test
+	 * @return The collision state: true if there is a collision, false if there is no collision.
+	 */
+	public static boolean doesCollide(Entity primary, CollisionMesh primaryMesh, Entity secondary, CollisionMesh secondaryMesh){
+		
+		float[] transformations = loadTransformations(primary, secondary);
+		return doesCollide(primaryMesh.getVertices(), primaryMesh.getNormals(),
+				secondaryMesh.getVertices(), secondaryMesh.getNormals(), transformations);
+		
+	}
+	
+	
+	/**
+	 * Runs the test on the convex hull parts of the two entities rather than their meshes. Each part is convex,
+	 * so the test is exact for each pair of parts, and the entities collide if any pair of their parts does.
+	 * 
+	 * @param primary An entity to check collision. Order insignificant.
+	 * @param secondary Another entity to check collision. Order insignificant.
+	 * @return true if any part of one entity intersects any part of the other
+	 */
+	public static boolean doesCollideHulls(Entity primary, Entity secondary){
+		
+		float[] transformations = loadTransformations(primary, secondary);
+		
+		for(ConvexHull primaryPart : primary.getHullParts()){
+			for(ConvexHull secondaryPart : secondary.getHullParts()){
+				if(doesCollide(primaryPart.getVertices(), primaryPart.getNormals(),
+						secondaryPart.getVertices(), secondaryPart.getNormals(), transformations)){
+					return true;
+				}
+			}
+		}
+		return false;
+		
+	}
+	
+	
+	/**
+	 * Loads the transformations of both entities into this thread's array, the primary's at 0 and the secondary's at 16.
+	 */
+	private static float[] loadTransformations(Entity primary, Entity secondary){
+		
+		double[] origin = Maths.findPairOrigin(primary, secondary);
+		float[] transformations = TRANSFORMATIONS.get();
+		Maths.loadTransformation(primary, origin, transformations, 0);
+		Maths.loadTransformation(secondary, origin, transformations, 16);
+		return transformations;
+		
+	}
+	
+	
+	private static boolean doesCollide(float[] primaryVertices, float[] primaryNormals,
+			float[] secondaryVertices, float[] secondaryNormals, float[] transformations){
 		
-		Vector3f[] shapePrimary = verticesToWorldPosition(primary);
-		Vector3f[] shapeSecondary = verticesToWorldPosition(secondary);
-		Vector3f[] normals = cull(combine(normalsToWorldPosition(primary), normalsToWorldPosition(secondary)));
+		Vector3f[] shapePrimary = verticesToWorldPosition(primaryVertices, transformations, 0);
+		Vector3f[] shapeSecondary = verticesToWorldPosition(secondaryVertices, transformations, 16);
+		Vector3f[] normals = cull(combine(normalsToWorldPosition(primaryNormals, transformations, 0), normalsToWorldPosition(secondaryNormals, transformations, 16)));
 		
 		for(int i = 0; i < normals.length; i++){
 			
@@ -41,22 +111,27 @@ public class HyperPlaneDetector {
 	/**
 	 * Parser method, shape vertices are stored as float arrays, this method will convert them to the lwjgl vector3f class for easier processing. The class also places them in accurate world position
 	 * 
-	 * @param e An entity, the vertices that define it will be given in the worldspace
+	 * @param vertices the model space vertices of a shape
+	 * @param m the transformations, ordered as by {@link Maths#composeTransformation}
+	 * @param offset where the transformation that places the shape in the worldspace starts in m
 	 * 
 	 * @return an array of vectors representing the worldSpace vertices of the given shape
 	 */
 	
-	private static Vector3f[] verticesToWorldPosition(Entity e){
+	private static Vector3f[] verticesToWorldPosition(float[] vertices, float[] m, int offset){
 		
-		float[] vertices = e.getVertices();
-		Matrix4f transformation = Maths.createTransformationMatrix(e);
 		Vector3f[] verts = new Vector3f[vertices.length/3];
 		
 		for(int i = 0; i < vertices.length/3; i++){
 			
 			int root = i*3;
-			Vector4f vertex = Matrix4f.transform(transformation, new Vector4f(vertices[root], vertices[root+1], vertices[root+2], 1), null);
-			verts[i] = new Vector3f(vertex.x, vertex.y, vertex.z);
+			float x = vertices[root];
+			float y = vertices[root+1];
+			float z = vertices[root+2];
+			verts[i] = new Vector3f(
+					(m[offset] * x) + (m[offset + 4] * y) + (m[offset + 8] * z) + m[offset + 12],
+					(m[offset + 1] * x) + (m[offset + 5] * y) + (m[offset + 9] * z) + m[offset + 13],
+					(m[offset + 2] * x) + (m[offset + 6] * y) + (m[offset + 10] * z) + m[offset + 14]);
 		}
 		return verts;
 		
@@ -64,20 +139,24 @@ public class HyperPlaneDetector {
 	/**
 	 * Parser method for normals, as scale and translation are unnecessary for normalised vectors this class uses only the roational information to align the normals with the shape.
 	 * 
-	 * @param floats a float array of normals as found in the getNormals() method of textured model. This information should be sourced from there
-	 * @param matrix a rotation only matrix representing the orientation of the object
+	 * @param normals a float array of normals as found in the getNormals() method of textured model. This information should be sourced from there
+	 * @param m the transformations, ordered as by {@link Maths#composeTransformation}
+	 * @param offset where the transformation of the object starts in m, only its rotation affects the normals
 	 * @return an array of normalised vectors representing the normals to the oriented shape
 	 */
-	private static Vector3f[] normalsToWorldPosition(Entity e){
+	private static Vector3f[] normalsToWorldPosition(float[] normals, float[] m, int offset){
 		
-		float[] normals = e.getNormals();
-		Matrix4f transformation = Maths.createTransformationMatrix(e);
 		Vector3f[] norms = new Vector3f[normals.length/3];
 		for(int i = 0; i < normals.length/3; i++){
 			
 			int root = i*3;
-			Vector4f normal = Matrix4f.transform(transformation, new Vector4f(normals[root], normals[root+1], normals[root+2], 0), null);
-			norms[i] = (Vector3f) new Vector3f(normal.x, normal.y, normal.z).normalise();
+			float x = normals[root];
+			float y = normals[root+1];
+			float z = normals[root+2];
+			norms[i] = (Vector3f) new Vector3f(
+					(m[offset] * x) + (m[offset + 4] * y) + (m[offset + 8] * z),
+					(m[offset + 1] * x) + (m[offset + 5] * y) + (m[offset + 9] * z),
+					(m[offset + 2] * x) + (m[offset + 6] * y) + (m[offset + 10] * z)).normalise();
 		}
 		return norms;
 	}
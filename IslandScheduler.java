@@ -0,0 +1,287 @@
+package com.tut.tutorial;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ *
+ * Runs a full collision tick - broad phase, narrow phase and response - across several threads.
+ *
+ * Pairs ruled out by {@link CollisionFilter} are dropped first, and entities that can collide with
+ * nothing never have their bounds found.
+ * 
+ * The broad phase finds every pair of entities whose bounding boxes overlap. Dynamic entities joined
+ * by a chain of such pairs form an island: nothing in one island can touch anything in another, so
+ * islands are independent and each one is handed to the executor on its own. Within an island
+ * the narrow phase is run on every pair and the response is given the pairs that collided.
+ *
+ * Entities that are not dynamic never move in response to a collision, so they do not join islands
+ * together. Otherwise one static ground under every dynamic entity would make the whole scene one
+ * island. Instead a non-dynamic entity is a member of every island that touches it, shared between
+ * them, and must only be read while islands are processed.
+ *
+ * Islands are found with union-find over the pairs of dynamic entities. Each island is identified by
+ * the lowest index of its dynamic entities, islands are returned in that order and their pairs are
+ * sorted by index, so the result of a tick never depends on how the threads were scheduled.
+ *
+ * @author CAISBlogss
+ *
+ */
+public class IslandScheduler {
+
+	/**
+	 * The narrow phase test run on each overlapping pair, for example {@link CollisionDetector#hyperplaneCollide(Entity, Entity)}.
+	 */
+	public interface PairTest {
+		boolean doesCollide(Entity primary, Entity secondary);
+	}
+
+	/**
+	 * Reacts to the collisions found in one island. Islands are processed at the same time, so a
+	 * response must only change the dynamic entities of the island it is given. Its other members
+	 * may be shared with other islands.
+	 */
+	public interface Response {
+		void resolve(Island island);
+	}
+
+	private ExecutorService executor;
+	private PairTest narrowPhase;
+	private Response response;
+
+
+	/**
+	 * @param executor
+	 * 				- The executor islands are run on, a ForkJoinPool or a virtual thread executor both suit.
+	 * @param narrowPhase
+	 * 				- The exact test run on pairs whose bounding boxes overlap.
+	 * @param response
+	 * 				- Called once for each island with at least one collision, may be null.
+	 */
+	public IslandScheduler(ExecutorService executor, PairTest narrowPhase, Response response){
+
+		this.executor = executor;
+		this.narrowPhase = narrowPhase;
+		this.response = response;
+
+	}
+
+
+	/**
+	 * Runs one tick over the given entities.
+	 *
+	 * @param entities
+	 * 				- Every entity in the scene. An entity's index in this list is its identity for ordering.
+	 *
+	 * @return
+	 * 				- The islands that had at least one collision, in order of their lowest dynamic entity index.
+	 */
+	public List<Island> tick(List<Entity> entities){
+
+		int[][] pairs = findOverlappingPairs(entities);
+		List<Island> islands = partition(entities, pairs);
+
+		List<Future<Island>> running = new ArrayList<Future<Island>>();
+		for(final Island island : islands){
+			running.add(executor.submit(() -> process(island)));
+		}
+
+		List<Island> collided = new ArrayList<Island>();
+		for(Future<Island> future : running){
+			Island island = await(future);
+			if(!island.collisions.isEmpty()){
+				collided.add(island);
+			}
+		}
+		return collided;
+
+	}
+
+
+	/**
+	 * Runs the narrow phase and the response for one island.
+	 */
+	private Island process(Island island){
+
+		for(int[] pair : island.pairs){
+			Entity primary = island.scene.get(pair[0]);
+			Entity secondary = island.scene.get(pair[1]);
+			if(narrowPhase.doesCollide(primary, secondary)){
+				island.collisions.add(new Entity[]{primary, secondary});
+			}
+		}
+		if(response != null && !island.collisions.isEmpty()){
+			response.resolve(island);
+		}
+		return island;
+
+	}
+
+
+	/**
+	 * Sort and sweep along the x axis: once entities are ordered by the start of their boxes, an entity
+	 * can only overlap those that start before its own box ends.
+	 *
+	 * @return
+	 * 				- Every overlapping pair as {lower index, higher index}, sorted.
+	 */
+	private int[][] findOverlappingPairs(List<Entity> entities){
+
+		final float[][] boxes = new float[entities.size()][];
+		List<Integer> candidates = new ArrayList<Integer>();
+		for(int i = 0; i < boxes.length; i++){
+			if(CollisionFilter.canCollideWithAnything(entities.get(i))){
+				boxes[i] = BoundingBoxDetector.findAxisAlignedBoundingBox(entities.get(i));
+				candidates.add(i);
+			}
+		}
+		Integer[] order = candidates.toArray(new Integer[candidates.size()]);
+		Arrays.sort(order, Comparator.comparingDouble(i -> boxes[i][0]));
+
+		List<int[]> pairs = new ArrayList<int[]>();
+		for(int i = 0; i < order.length; i++){
+			float[] box = boxes[order[i]];
+			Entity entity = entities.get(order[i]);
+			for(int j = i + 1; j < order.length && boxes[order[j]][0] <= box[1]; j++){
+				if(!CollisionFilter.canCollide(entity, entities.get(order[j]))){
+					continue;
+				}
+				float[] other = boxes[order[j]];
+				if(box[2] <= other[3] && box[3] >= other[2] && box[4] <= other[5] && box[5] >= other[4]){
+					pairs.add(new int[]{Math.min(order[i], order[j]), Math.max(order[i], order[j])});
+				}
+			}
+		}
+
+		int[][] sorted = pairs.toArray(new int[pairs.size()][]);
+		Arrays.sort(sorted, PAIR_ORDER);
+		return sorted;
+
+	}
+
+
+	/**
+	 * Groups the overlapping pairs into islands with union-find. Only pairs of dynamic entities join
+	 * islands; a pair with a non-dynamic entity goes to the island of its dynamic one.
+	 */
+	private List<Island> partition(List<Entity> entities, int[][] pairs){
+
+		boolean[] dynamic = new boolean[entities.size()];
+		int[] parent = new int[entities.size()];
+		for(int i = 0; i < parent.length; i++){
+			dynamic[i] = entities.get(i).getBodyType() == Entity.BodyType.DYNAMIC;
+			parent[i] = i;
+		}
+		for(int[] pair : pairs){
+			if(!dynamic[pair[0]] || !dynamic[pair[1]]){
+				continue;
+			}
+			int a = find(parent, pair[0]);
+			int b = find(parent, pair[1]);
+			// The lower index always becomes the root, so every island is keyed by its lowest entity
+			if(a < b){
+				parent[b] = a;
+			} else if(b < a){
+				parent[a] = b;
+			}
+		}
+
+		Island[] byRoot = new Island[parent.length];
+		List<Island> islands = new ArrayList<Island>();
+		for(int[] pair : pairs){
+			// CollisionFilter only lets through pairs with at least one dynamic entity
+			int root = find(parent, dynamic[pair[0]] ? pair[0] : pair[1]);
+			if(byRoot[root] == null){
+				byRoot[root] = new Island(entities, root);
+				islands.add(byRoot[root]);
+			}
+			byRoot[root].pairs.add(pair);
+			byRoot[root].memberIndices.add(pair[0]);
+			byRoot[root].memberIndices.add(pair[1]);
+		}
+		for(int i = 0; i < parent.length; i++){
+			Island island = byRoot[find(parent, i)];
+			if(island != null && dynamic[i]){
+				island.memberIndices.add(i);
+			}
+		}
+		for(Island island : islands){
+			for(int i : island.memberIndices){
+				island.members.add(entities.get(i));
+			}
+		}
+
+		Collections.sort(islands, Comparator.comparingInt(island -> island.root));
+		return islands;
+
+	}
+
+	private static int find(int[] parent, int i){
+		while(parent[i] != i){
+			// Path halving keeps the trees shallow without recursion
+			parent[i] = parent[parent[i]];
+			i = parent[i];
+		}
+		return i;
+	}
+
+	private static Island await(Future<Island> future){
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for an island", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Processing an island failed", e.getCause());
+		}
+	}
+
+	private static final Comparator<int[]> PAIR_ORDER = (a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0]) : Integer.compare(a[1], b[1]);
+
+
+	/**
+	 * A group of entities that can only collide with each other this tick.
+	 *
+	 * @author CAISBlogss
+	 *
+	 */
+	public static class Island {
+
+		private List<Entity> scene;
+		private int root;
+		private Set<Integer> memberIndices = new TreeSet<Integer>();
+		private List<Entity> members = new ArrayList<Entity>();
+		private List<int[]> pairs = new ArrayList<int[]>();
+		private List<Entity[]> collisions = new ArrayList<Entity[]>();
+
+		private Island(List<Entity> scene, int root){
+			this.scene = scene;
+			this.root = root;
+		}
+
+		/**
+		 * @return
+		 * 			- The entities of the island in scene order, including the non-dynamic entities it touches, which other islands may share.
+		 */
+		public List<Entity> getEntities() {
+			return members;
+		}
+
+		/**
+		 * @return
+		 * 			- The pairs that collided as {primary, secondary}, ordered by their scene indices.
+		 */
+		public List<Entity[]> getCollisions() {
+			return collisions;
+		}
+	}
+
+}
@@ -0,0 +1,164 @@
+package com.tut.tutorial;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+public class IslandSchedulerTest {
+
+	/**
+	 * A few hundred cubes scattered closely enough that many touch, some in long chains.
+	 */
+	private static List<Entity> scatteredScene(){
+
+		Random random = new Random(29);
+		List<Entity> scene = new ArrayList<Entity>();
+		for(int i = 0; i < 300; i++){
+			scene.add(TestShapes.cube(random.nextFloat() * 60, random.nextFloat() * 20, random.nextFloat() * 20,
+					random.nextFloat() * 90, random.nextFloat() * 90, random.nextFloat() * 90, 0.5f + random.nextFloat()));
+		}
+		return scene;
+
+	}
+
+	/**
+	 * Describes a tick's islands by the scene indices of their entities and collisions, in the order they were returned.
+	 */
+	private static List<String> describe(List<Entity> scene, List<IslandScheduler.Island> islands){
+
+		List<String> description = new ArrayList<String>();
+		for(IslandScheduler.Island island : islands){
+			StringBuilder builder = new StringBuilder();
+			for(Entity e : island.getEntities()){
+				builder.append(scene.indexOf(e)).append(' ');
+			}
+			builder.append(':');
+			for(Entity[] collision : island.getCollisions()){
+				builder.append(' ').append(scene.indexOf(collision[0])).append('-').append(scene.indexOf(collision[1]));
+			}
+			description.add(builder.toString());
+		}
+		return description;
+
+	}
+
+	private static List<String> tick(List<Entity> scene, int threads) throws Exception {
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			return describe(scene, new IslandScheduler(executor, HyperPlaneDetector::doesCollide, null).tick(scene));
+		} finally {
+			executor.shutdown();
+		}
+
+	}
+
+
+	@Test
+	public void parallelTicksMatchSerialTicks() throws Exception {
+
+		List<Entity> scene = scatteredScene();
+		List<String> serial = tick(scene, 1);
+		assertTrue(serial.size() > 1);
+		for(int i = 0; i < 5; i++){
+			assertEquals(serial, tick(scene, 8));
+		}
+
+	}
+
+	@Test
+	public void islandsHoldEveryCollisionOnce() throws Exception {
+
+		List<Entity> scene = scatteredScene();
+		Set<String> expected = new HashSet<String>();
+		for(int i = 0; i < scene.size(); i++){
+			for(int j = i + 1; j < scene.size(); j++){
+				if(BoundingBoxDetector.doesCollide(scene.get(i), scene.get(j)) && HyperPlaneDetector.doesCollide(scene.get(i), scene.get(j))){
+					expected.add(i + "-" + j);
+				}
+			}
+		}
+
+		Set<String> found = new HashSet<String>();
+		Set<Integer> seen = new HashSet<Integer>();
+		for(String island : tick(scene, 8)){
+			for(String member : island.substring(0, island.indexOf(':')).trim().split(" ")){
+				// Every entity here is dynamic, so no two islands share one
+				assertTrue(seen.add(Integer.parseInt(member)));
+			}
+			for(String collision : island.substring(island.indexOf(':') + 1).trim().split(" ")){
+				assertTrue(found.add(collision));
+			}
+		}
+		assertEquals(expected, found);
+
+	}
+
+	@Test
+	public void staticGroundDoesNotJoinIslands() throws Exception {
+
+		List<Entity> scene = new ArrayList<Entity>();
+		Entity ground = TestShapes.cube(0, -50, 0, 50);
+		ground.setBodyType(Entity.BodyType.STATIC);
+		scene.add(ground);
+		for(int i = 0; i < 10; i++){
+			// Resting on the ground, far enough apart not to touch each other
+			scene.add(TestShapes.cube(-45 + (i * 10), 0.5f, 0, 1));
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<IslandScheduler.Island> islands = new IslandScheduler(executor, HyperPlaneDetector::doesCollide, null).tick(scene);
+
+			assertEquals(10, islands.size());
+			for(int i = 0; i < islands.size(); i++){
+				IslandScheduler.Island island = islands.get(i);
+				assertEquals(2, island.getEntities().size());
+				assertTrue(island.getEntities().get(0) == ground);
+				assertTrue(island.getEntities().get(1) == scene.get(i + 1));
+				assertEquals(1, island.getCollisions().size());
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+	}
+
+	@Test
+	public void dynamicChainsStillJoinIslands() throws Exception {
+
+		List<Entity> scene = new ArrayList<Entity>();
+		Entity ground = TestShapes.cube(0, -50, 0, 50);
+		ground.setBodyType(Entity.BodyType.STATIC);
+		scene.add(ground);
+		// Three touching boxes in a row, then one on its own
+		scene.add(TestShapes.cube(0, 0.5f, 0, 1));
+		scene.add(TestShapes.cube(1.5f, 0.5f, 0, 1));
+		scene.add(TestShapes.cube(3, 0.5f, 0, 1));
+		scene.add(TestShapes.cube(20, 0.5f, 0, 1));
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<IslandScheduler.Island> islands = new IslandScheduler(executor, HyperPlaneDetector::doesCollide, null).tick(scene);
+
+			assertEquals(2, islands.size());
+			assertEquals(4, islands.get(0).getEntities().size());
+			assertEquals(5, islands.get(0).getCollisions().size());
+			assertEquals(2, islands.get(1).getEntities().size());
+			assertEquals(1, islands.get(1).getCollisions().size());
+		} finally {
+			executor.shutdown();
+		}
+
+	}
+
+}
@@ -0,0 +1,123 @@
+package com.tut.tutorial;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.tut.prerequesits.Vector3f;
+
+public class LargeWorldTest {
+
+	/** About 50km from the centre of the world, where floats are only placed to the nearest few millimetres */
+	private static final double FAR_X = 50000;
+	private static final double FAR_Z = -50000;
+
+
+	/**
+	 * A cube at the origin and another that almost touches it, both in the region at the given origin.
+	 */
+	private static Entity[] pair(Random random, double regionX, double regionZ){
+
+		Entity primary;
+		Entity secondary;
+		if(random.nextInt(4) == 0){
+			// Side by side with a millimetre between them, less than a float can resolve 50km out
+			primary = TestShapes.cube(0, 0, 0);
+			secondary = TestShapes.cube(2.001f, random.nextFloat(), random.nextFloat());
+		} else {
+			// Between one and two half widths away along each axis, so the pair sits on the edge of touching
+			primary = TestShapes.cube(0, 0, 0, random.nextFloat() * 90, random.nextFloat() * 90, random.nextFloat() * 90, 1);
+			secondary = TestShapes.cube(1 + random.nextFloat() * 2, 1 + random.nextFloat() * 2, random.nextFloat() * 2,
+					random.nextFloat() * 90, random.nextFloat() * 90, random.nextFloat() * 90, 1);
+		}
+		primary.setRegionOrigin(regionX, 0, regionZ);
+		secondary.setRegionOrigin(regionX, 0, regionZ);
+		return new Entity[]{primary, secondary};
+
+	}
+
+	private interface PairTest {
+		boolean doesCollide(Entity primary, Entity secondary);
+	}
+
+	/**
+	 * Runs the test on the same pairs near the origin and far from it, and checks both give the same answers.
+	 */
+	private static void assertFarMatchesNear(PairTest test){
+
+		boolean wasLargeWorld = Maths.isLargeWorld();
+		Maths.setLargeWorld(true);
+		try {
+			Random near = new Random(30);
+			Random far = new Random(30);
+			int collisions = 0;
+			for(int i = 0; i < 500; i++){
+				Entity[] nearPair = pair(near, 0, 0);
+				Entity[] farPair = pair(far, FAR_X, FAR_Z);
+				boolean expected = test.doesCollide(nearPair[0], nearPair[1]);
+				assertEquals(expected, test.doesCollide(farPair[0], farPair[1]));
+				collisions += expected ? 1 : 0;
+			}
+			// Both answers come up, so the pairs do test the edge of touching
+			assertTrue(collisions > 0 && collisions < 500);
+		} finally {
+			Maths.setLargeWorld(wasLargeWorld);
+		}
+
+	}
+
+
+	@Test
+	public void farBoxesMatchBoxesAtTheOrigin() {
+
+		assertFarMatchesNear(BoundingBoxDetector::doesCollide);
+
+	}
+
+	@Test
+	public void farHyperplanesMatchHyperplanesAtTheOrigin() {
+
+		assertFarMatchesNear(HyperPlaneDetector::doesCollide);
+
+	}
+
+	@Test
+	public void farSweepsMatchSweepsAtTheOrigin() {
+
+		assertFarMatchesNear((primary, secondary) -> FauerbyDetector.doesCollide(primary, new Vector3f(0.25f, 0.25f, 0), secondary));
+
+	}
+
+	@Test
+	public void farRaysMatchRaysAtTheOrigin() {
+
+		boolean wasLargeWorld = Maths.isLargeWorld();
+		Maths.setLargeWorld(true);
+		try {
+			Random random = new Random(30);
+			int hits = 0;
+			for(int i = 0; i < 200; i++){
+				float rotX = random.nextFloat() * 90;
+				float rotY = random.nextFloat() * 90;
+				Entity near = TestShapes.cube(0, 0, 0, rotX, rotY, 0, 1);
+				Entity far = TestShapes.cube(0, 0, 0, rotX, rotY, 0, 1);
+				far.setRegionOrigin(FAR_X, 0, FAR_Z);
+				float y = (random.nextFloat() - 0.5f) * 3;
+				float z = (random.nextFloat() - 0.5f) * 3;
+				Vector3f direction = new Vector3f(1, 0, 0);
+
+				float expected = RayDetector.cast(near, new double[]{-5, y, z}, direction, 10);
+				assertEquals(expected, RayDetector.cast(far, new double[]{FAR_X - 5, y, FAR_Z + z}, direction, 10), 1e-4f);
+				hits += expected >= 0 ? 1 : 0;
+			}
+			assertTrue(hits > 0 && hits < 200);
+		} finally {
+			Maths.setLargeWorld(wasLargeWorld);
+		}
+
+	}
+
+}
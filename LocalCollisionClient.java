@@ -0,0 +1,74 @@
+package com.tut.tutorial;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 
+ * A {@link CollisionClient} that hands its batches straight to a {@link CollisionService} in the same
+ * process. It behaves as a socket client would, without the socket, so code written against
+ * {@link CollisionClient} can be run and tested in a single process.
+ * 
+ * @author CAISBlogss
+ *
+ */
+public class LocalCollisionClient implements CollisionClient {
+	
+	private CollisionService service;
+	private AtomicInteger nextId = new AtomicInteger();
+	private List<CollisionService.Query> queued = new ArrayList<CollisionService.Query>();
+	private List<CompletableFuture<CollisionService.Result>> waiting = new ArrayList<CompletableFuture<CollisionService.Result>>();
+	
+	
+	public LocalCollisionClient(CollisionService service){
+		this.service = service;
+	}
+	
+	
+	@Override
+	public synchronized CompletableFuture<CollisionService.Result> submit(CollisionService.Query query){
+		
+		CompletableFuture<CollisionService.Result> result = new CompletableFuture<CollisionService.Result>();
+		queued.add(query.withId(nextId.getAndIncrement()));
+		waiting.add(result);
+		return result;
+		
+	}
+	
+	
+	@Override
+	public void flush(){
+		
+		final List<CollisionService.Query> batch;
+		final List<CompletableFuture<CollisionService.Result>> futures;
+		synchronized(this){
+			batch = queued;
+			futures = waiting;
+			queued = new ArrayList<CollisionService.Query>();
+			waiting = new ArrayList<CompletableFuture<CollisionService.Result>>();
+		}
+		if(batch.isEmpty()){
+			return;
+		}
+		
+		service.process(batch).whenComplete((results, failure) -> {
+			for(int i = 0; i < futures.size(); i++){
+				if(failure != null){
+					futures.get(i).completeExceptionally(failure);
+				} else {
+					futures.get(i).complete(results.get(i));
+				}
+			}
+		});
+		
+	}
+	
+	
+	@Override
+	public void close(){
+		flush();
+	}
+	
+}
@@ -0,0 +1,77 @@
+package com.tut.tutorial;
+
+import java.io.IOException;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ *
+ * A {@link ShardTransport} for shards running on threads of one process, for example to test a sharded
+ * world on one machine. Messages are handed over through shared mailboxes: every shard posts its messages,
+ * waits for all the others to post theirs, collects its own, then waits again so no shard can post the
+ * next tick's messages before every shard has collected this tick's.
+ *
+ * @author CAISBlogss
+ *
+ */
+public class LoopbackShardTransport implements ShardTransport {
+
+	/** How long a shard waits for the others before the exchange fails */
+	public static final long TIMEOUT_SECONDS = 30;
+
+	private byte[][][] mailboxes;
+	private CyclicBarrier barrier;
+
+
+	/**
+	 * @param shards
+	 * 				- The number of shards, every one of which must call {@link #exchange(int, byte[][])} each tick.
+	 */
+	public LoopbackShardTransport(int shards){
+
+		this.mailboxes = new byte[shards][shards][];
+		this.barrier = new CyclicBarrier(shards);
+
+	}
+
+
+	@Override
+	public byte[][] exchange(int shard, byte[][] outgoing) throws IOException {
+
+		for(int to = 0; to < mailboxes.length; to++){
+			if(to != shard){
+				mailboxes[to][shard] = outgoing[to];
+			}
+		}
+		await();
+
+		byte[][] incoming = mailboxes[shard].clone();
+		incoming[shard] = null;
+		await();
+		return incoming;
+
+	}
+
+	private void await() throws IOException {
+		try {
+			barrier.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while exchanging with other shards", e);
+		} catch (BrokenBarrierException | TimeoutException e) {
+			throw new IOException("Another shard did not take part in the exchange", e);
+		}
+	}
+
+
+	/**
+	 * Fails the exchange of any shard still waiting.
+	 */
+	@Override
+	public void close() {
+		barrier.reset();
+	}
+
+}
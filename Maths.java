@@ -1,23 +1,182 @@
 package com.tut.tutorial;
 
-import com.tut.prerequesits.Entity;
 import com.tut.prerequesits.Matrix4f;
 import com.tut.prerequesits.Vector3f;
 
 public class Maths {
 	
+	// The origin of the world, never handed out so no caller can move it
+	private static final double[] WORLD_ORIGIN = new double[]{0, 0, 0};
+	
+	private static boolean largeWorld = false;
+	
+	// Where createTransformationMatrix builds its matrix, one per thread so detectors can run in parallel
+	private static final ThreadLocal<float[]> SCRATCH = ThreadLocal.withInitial(() -> new float[16]);
+	
+	
+	/**
+	 * Turns large world mode on or off. Floats hold about seven significant digits, so tens of kilometres
+	 * from the origin vertices can only be placed to the nearest few millimetres and contacts start to flicker.
+	 * In large world mode detectors work in a frame centred on one entity of each pair, so the coordinates
+	 * they handle stay small wherever the pair is in the world.
+	 * 
+	 * @param enabled
+	 * 				- true to test every pair in its own local frame, false to test in WorldSpace.
+	 */
+	public static void setLargeWorld(boolean enabled){
+		largeWorld = enabled;
+	}
+	
+	public static boolean isLargeWorld(){
+		return largeWorld;
+	}
+	
+	
+	/**
+	 * @return a new array holding the origin of the world, for frames that are wanted in WorldSpace
+	 */
+	public static double[] worldOrigin(){
+		return WORLD_ORIGIN.clone();
+	}
+	
 	
 	public static Matrix4f createTransformationMatrix(Entity entity){
+		return createTransformationMatrix(entity, WORLD_ORIGIN);
+	}
+	
+	
+	/**
+	 * Creates the transformation of an entity into a frame centred on the given origin, see
+	 * {@link #loadTransformation(Entity, double[], float[], int)}. The detectors read the floats directly
+	 * rather than through a new matrix; this is kept for code that wants a {@link Matrix4f}.
+	 * 
+	 * @param entity the entity to place
+	 * @param origin the WorldSpace position that becomes (0, 0, 0) in the new frame, stored {x, y, z}
+	 * @return the transformation from the entity's model space into the frame
+	 */
+	public static Matrix4f createTransformationMatrix(Entity entity, double[] origin){
+		
+		float[] source = SCRATCH.get();
+		loadTransformation(entity, origin, source, 0);
 		
 		Matrix4f matrix = new Matrix4f();
-		matrix.setIdentity();
-		Matrix4f.translate(entity.getPosition(), matrix, matrix);
-		Matrix4f.rotate((float) Math.toRadians(entity.getRotX()), new Vector3f(1,0,0), matrix, matrix);
-		Matrix4f.rotate((float) Math.toRadians(entity.getRotY()), new Vector3f(0,1,0), matrix, matrix);
-		Matrix4f.rotate((float) Math.toRadians(entity.getRotZ()), new Vector3f(0,0,1), matrix, matrix);
-		Matrix4f.scale(new Vector3f(entity.getScale(), entity.getScale(), entity.getScale()), matrix, matrix);
+		matrix.m00 = source[0];
+		matrix.m01 = source[1];
+		matrix.m02 = source[2];
+		matrix.m03 = 0;
+		matrix.m10 = source[4];
+		matrix.m11 = source[5];
+		matrix.m12 = source[6];
+		matrix.m13 = 0;
+		matrix.m20 = source[8];
+		matrix.m21 = source[9];
+		matrix.m22 = source[10];
+		matrix.m23 = 0;
+		matrix.m30 = source[12];
+		matrix.m31 = source[13];
+		matrix.m32 = source[14];
+		matrix.m33 = 1;
 		
 		return matrix;
 	}
+	
+	
+	/**
+	 * Writes the transformation of an entity into a frame centred on the given origin into an array, in the
+	 * order described by {@link #composeTransformation}. The offset from the origin to the entity is worked out
+	 * in double precision before it is stored, so entities close to the origin are placed exactly however far
+	 * both are from the centre of the world.
+	 * 
+	 * Nothing is allocated. If the entity is in a {@link TransformBatch} that is up to date with it, the 16 floats
+	 * are copied from the batch's array rather than built again, so detectors can keep one array per thread and
+	 * read the once per tick matrices through it.
+	 * 
+	 * @param entity the entity to place
+	 * @param origin the WorldSpace position that becomes (0, 0, 0) in the new frame, stored {x, y, z}
+	 * @param dest the array to write into
+	 * @param offset where in the array the 16 elements start
+	 */
+	public static void loadTransformation(Entity entity, double[] origin, float[] dest, int offset){
+		
+		TransformBatch batch = entity.getTransformBatch();
+		if(batch != null && batch.isCurrent(entity)){
+			System.arraycopy(batch.getMatrices(), 16 * entity.getTransformSlot(), dest, offset, 16);
+		} else {
+			Vector3f position = entity.getPosition();
+			composeTransformation(position.x, position.y, position.z, entity.getRotX(), entity.getRotY(), entity.getRotZ(), entity.getScale(), dest, offset);
+		}
+		
+		double[] region = entity.getRegionOrigin();
+		dest[offset + 12] = (float) ((region[0] - origin[0]) + dest[offset + 12]);
+		dest[offset + 13] = (float) ((region[1] - origin[1]) + dest[offset + 13]);
+		dest[offset + 14] = (float) ((region[2] - origin[2]) + dest[offset + 14]);
+	}
+	
+	
+	/**
+	 * Writes the transformation translate * rotateX * rotateY * rotateZ * scale straight into an array, in the
+	 * same column by column order as {@link Matrix4f} (element [4 * column + row]). The three rotations are
+	 * multiplied out ahead of time, so each angle needs one sine and one cosine and nothing else is allocated.
+	 * 
+	 * @param x the translation along x
+	 * @param y the translation along y
+	 * @param z the translation along z
+	 * @param rotX the rotation about x in degrees
+	 * @param rotY the rotation about y in degrees
+	 * @param rotZ the rotation about z in degrees
+	 * @param scale the uniform scale
+	 * @param dest the array to write into
+	 * @param offset where in the array the 16 elements start
+	 */
+	public static void composeTransformation(float x, float y, float z, float rotX, float rotY, float rotZ, float scale, float[] dest, int offset){
+		
+		double ax = Math.toRadians(rotX);
+		double ay = Math.toRadians(rotY);
+		double az = Math.toRadians(rotZ);
+		float sx = (float) Math.sin(ax);
+		float cx = (float) Math.cos(ax);
+		float sy = (float) Math.sin(ay);
+		float cy = (float) Math.cos(ay);
+		float sz = (float) Math.sin(az);
+		float cz = (float) Math.cos(az);
+		
+		// First column
+		dest[offset] = cy * cz * scale;
+		dest[offset + 1] = ((sx * sy * cz) + (cx * sz)) * scale;
+		dest[offset + 2] = ((sx * sz) - (cx * sy * cz)) * scale;
+		dest[offset + 3] = 0;
+		// Second column
+		dest[offset + 4] = -cy * sz * scale;
+		dest[offset + 5] = ((cx * cz) - (sx * sy * sz)) * scale;
+		dest[offset + 6] = ((cx * sy * sz) + (sx * cz)) * scale;
+		dest[offset + 7] = 0;
+		// Third column
+		dest[offset + 8] = sy * scale;
+		dest[offset + 9] = -sx * cy * scale;
+		dest[offset + 10] = cx * cy * scale;
+		dest[offset + 11] = 0;
+		// Translation
+		dest[offset + 12] = x;
+		dest[offset + 13] = y;
+		dest[offset + 14] = z;
+		dest[offset + 15] = 1;
+	}
+	
+	
+	/**
+	 * The frame a pair of entities should be tested in: centred on the primary entity in large world mode,
+	 * or WorldSpace otherwise.
+	 * 
+	 * @param primary the first entity of the pair
+	 * @param secondary the second entity of the pair
+	 * @return the WorldSpace origin of the frame as a new array, stored {x, y, z}
+	 */
+	public static double[] findPairOrigin(Entity primary, Entity secondary){
+		
+		if(!largeWorld){
+			return worldOrigin();
+		}
+		return primary.getWorldPosition();
+	}
 
 }
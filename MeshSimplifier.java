@@ -0,0 +1,669 @@
+package com.tut.tutorial;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ *
+ * Builds a coarser collision mesh from a render mesh by quadric edge collapse (Garland and Heckbert).
+ *
+ * Every vertex keeps a quadric: the sum of the squared distance functions of the planes of the
+ * triangles around it. The cost of collapsing an edge is the value of the two vertices' combined
+ * quadric at the point they merge to, which is the sum of the squared distances from that point to
+ * the original planes. The cheapest edge is collapsed again and again until the triangle budget is met or the
+ * next collapse would move the surface further than the allowed error.
+ *
+ * Collapsing edges cuts corners off the shape, which for collision would let things sink into it. So
+ * once the collapses are done, points spread over every original triangle are checked against the faces
+ * around the vertices they were merged into, and the simplified vertices are pushed outwards along their
+ * normals by the furthest any point sticks out beyond those faces. This is repeated until nothing sticks
+ * out, then every point is checked against the whole simplified mesh. Should that fail, or the pushing not
+ * settle, the convex hull of the original is returned instead, which is coarser but always covers it. The
+ * simplified mesh therefore covers the original rather than cutting into it, at the price of being slightly larger.
+ *
+ * Outwards is worked out from the winding of the triangles, which must be anti-clockwise when seen from
+ * outside. Simplification is slow and should be done when models are loaded, see {@link CollisionLod}.
+ *
+ * @author CAISBlogss
+ *
+ */
+public class MeshSimplifier {
+
+	private static final int MAX_INFLATE_PASSES = 64;
+
+	/** The points checked along each edge of an original triangle, including its corners, when checking the surface is covered */
+	private static final int SAMPLES_PER_EDGE = 4;
+
+	/** How far a point may lie outside the simplified mesh, as a fraction of the size of the original, and still count as covered */
+	private static final float TOLERANCE = 1e-4f;
+
+
+	/**
+	 * Simplifies a mesh.
+	 *
+	 * @param vertices
+	 * 				- The vertices of the render mesh, stored {x, y, z, x, y, z...}
+	 * @param indices
+	 * 				- The triangles of the render mesh.
+	 * @param ratio
+	 * 				- The fraction of triangles to keep, between 0 and 1.
+	 * @param maxError
+	 * 				- The error limit in model space units, compared with the square root of a collapse's cost. As the cost sums
+	 * 				the distances to every plane merged so far, this is an upper bound on how far the surface moves. Collapses
+	 * 				stop once it is reached even if the ratio has not been.
+	 *
+	 * @return
+	 * 				- The simplified collision mesh, or the convex hull of the render mesh if the simplified mesh could not be made to cover it.
+	 */
+	public static CollisionMesh simplify(float[] vertices, int[] indices, float ratio, float maxError){
+
+		Simplification s = new Simplification(vertices, indices);
+		s.collapse(Math.max(1, (int) (ratio * (indices.length/3))), maxError * maxError);
+		// Pushing one vertex out tilts the faces around it, so the check is repeated until nothing sticks out
+		boolean settled = false;
+		for(int pass = 0; pass < MAX_INFLATE_PASSES && !settled; pass++){
+			settled = !s.inflate();
+		}
+		if(settled && s.covers()){
+			return s.toMesh();
+		}
+
+		// A flat render mesh has a flat hull, which needs a thickness to have faces
+		ConvexHull hull = ConvexHull.solid(vertices);
+		return new CollisionMesh(hull.getVertices(), hull.getNormals(), hull.getIndices());
+
+	}
+
+
+	/**
+	 * The working state of one simplification.
+	 *
+	 * @author CAISBlogss
+	 *
+	 */
+	private static class Simplification{
+
+		/** Render meshes repeat vertices at seams, so positions are welded before collapsing */
+		float[][] position;
+		/** Points on the original surface, with the welded vertices of the triangle each lies on */
+		float[][] samples;
+		int[][] sampleCorners;
+		float tolerance;
+		double[][] quadric;
+		int[] mergedInto;
+		int[] version;
+		boolean[] removed;
+		List<Set<Integer>> facesOf = new ArrayList<Set<Integer>>();
+
+		int[][] faces;
+		boolean[] faceRemoved;
+		int liveFaces;
+
+		PriorityQueue<Collapse> queue = new PriorityQueue<Collapse>((a, b) -> Double.compare(a.cost, b.cost));
+
+
+		protected Simplification(float[] vertices, int[] indices){
+
+			Map<Key, Integer> welded = new HashMap<Key, Integer>();
+			List<float[]> positions = new ArrayList<float[]>();
+			int[] weldedIndex = new int[vertices.length/3];
+			for(int i = 0; i < weldedIndex.length; i++){
+				Key key = new Key(vertices[3 * i], vertices[(3 * i) + 1], vertices[(3 * i) + 2]);
+				Integer index = welded.get(key);
+				if(index == null){
+					index = positions.size();
+					welded.put(key, index);
+					positions.add(new float[]{key.x, key.y, key.z});
+				}
+				weldedIndex[i] = index;
+			}
+
+			int count = positions.size();
+			position = positions.toArray(new float[count][]);
+			quadric = new double[count][10];
+			mergedInto = new int[count];
+			version = new int[count];
+			removed = new boolean[count];
+			float[] min = new float[]{Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE};
+			float[] max = new float[]{-Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+			for(int i = 0; i < count; i++){
+				mergedInto[i] = i;
+				facesOf.add(new HashSet<Integer>());
+				for(int j = 0; j < 3; j++){
+					min[j] = Math.min(min[j], position[i][j]);
+					max[j] = Math.max(max[j], position[i][j]);
+				}
+			}
+			float size = (float) Math.sqrt(((max[0] - min[0]) * (max[0] - min[0])) + ((max[1] - min[1]) * (max[1] - min[1])) + ((max[2] - min[2]) * (max[2] - min[2])));
+			tolerance = TOLERANCE * size;
+
+			faces = new int[indices.length/3][];
+			faceRemoved = new boolean[faces.length];
+			for(int i = 0; i < faces.length; i++){
+				faces[i] = new int[]{weldedIndex[indices[3 * i]], weldedIndex[indices[(3 * i) + 1]], weldedIndex[indices[(3 * i) + 2]]};
+				if(faces[i][0] == faces[i][1] || faces[i][1] == faces[i][2] || faces[i][2] == faces[i][0]){
+					faceRemoved[i] = true;
+					continue;
+				}
+				liveFaces++;
+				double[] plane = plane(i);
+				for(int corner : faces[i]){
+					facesOf.get(corner).add(i);
+					addPlane(quadric[corner], plane);
+				}
+			}
+
+			sampleSurface();
+
+			for(int i = 0; i < faces.length; i++){
+				if(!faceRemoved[i]){
+					for(int j = 0; j < 3; j++){
+						int a = faces[i][j];
+						int b = faces[i][(j + 1) % 3];
+						if(a < b){
+							offer(a, b);
+						}
+					}
+				}
+			}
+		}
+
+
+		/**
+		 * Spreads points over every original triangle on a grid of {@link #SAMPLES_PER_EDGE} points a side.
+		 * Points on shared edges are repeated, which only costs time.
+		 */
+		private void sampleSurface(){
+
+			List<float[]> points = new ArrayList<float[]>();
+			List<int[]> corners = new ArrayList<int[]>();
+			int steps = SAMPLES_PER_EDGE - 1;
+			for(int f = 0; f < faces.length; f++){
+				if(faceRemoved[f]){
+					continue;
+				}
+				float[] a = position[faces[f][0]];
+				float[] b = position[faces[f][1]];
+				float[] c = position[faces[f][2]];
+				for(int i = 0; i <= steps; i++){
+					for(int j = 0; i + j <= steps; j++){
+						float u = i / (float) steps;
+						float v = j / (float) steps;
+						float w = 1 - u - v;
+						points.add(new float[]{
+								(a[0] * w) + (b[0] * u) + (c[0] * v),
+								(a[1] * w) + (b[1] * u) + (c[1] * v),
+								(a[2] * w) + (b[2] * u) + (c[2] * v)});
+						corners.add(faces[f].clone());
+					}
+				}
+			}
+			samples = points.toArray(new float[points.size()][]);
+			sampleCorners = corners.toArray(new int[corners.size()][]);
+
+		}
+
+
+		/**
+		 * Collapses the cheapest edges until the face budget or the error limit is reached.
+		 */
+		protected void collapse(int targetFaces, double maxCost){
+
+			while(liveFaces > targetFaces && !queue.isEmpty()){
+
+				Collapse next = queue.poll();
+				if(next.cost > maxCost){
+					break;
+				}
+				if(removed[next.a] || removed[next.b] || version[next.a] != next.versionA || version[next.b] != next.versionB){
+					continue;
+				}
+				if(!keepsManifold(next.a, next.b)){
+					continue;
+				}
+				float[] target = chooseTarget(next.a, next.b, maxCost);
+				if(target == null){
+					continue;
+				}
+
+				int keep = next.a;
+				int lose = next.b;
+				position[keep] = target;
+				for(int i = 0; i < 10; i++){
+					quadric[keep][i] += quadric[lose][i];
+				}
+				removed[lose] = true;
+				mergedInto[lose] = keep;
+
+				for(int face : facesOf.get(lose)){
+					if(faceRemoved[face]){
+						continue;
+					}
+					for(int j = 0; j < 3; j++){
+						if(faces[face][j] == lose){
+							faces[face][j] = keep;
+						}
+					}
+					if(faces[face][0] == faces[face][1] || faces[face][1] == faces[face][2] || faces[face][2] == faces[face][0]){
+						faceRemoved[face] = true;
+						liveFaces--;
+						for(int corner : faces[face]){
+							facesOf.get(corner).remove(face);
+						}
+					} else {
+						facesOf.get(keep).add(face);
+					}
+				}
+				facesOf.get(lose).clear();
+
+				version[keep]++;
+				for(int neighbour : neighbours(keep)){
+					offer(Math.min(keep, neighbour), Math.max(keep, neighbour));
+				}
+			}
+		}
+
+
+		/**
+		 * The link condition: an edge can only be collapsed if the vertices joined to both of its ends are exactly
+		 * the far corners of the triangles on the edge. Otherwise the collapse pinches the surface into a fold.
+		 */
+		private boolean keepsManifold(int a, int b){
+
+			Set<Integer> shared = neighbours(a);
+			shared.retainAll(neighbours(b));
+
+			int edgeFaces = 0;
+			for(int face : facesOf.get(a)){
+				int[] corners = faces[face];
+				if(!faceRemoved[face] && (corners[0] == b || corners[1] == b || corners[2] == b)){
+					edgeFaces++;
+				}
+			}
+			return shared.size() <= edgeFaces;
+
+		}
+
+
+		/**
+		 * Would moving vertex "moving" to the target turn any of its faces (other than those shared with "other") inside out
+		 */
+		private boolean flips(int moving, int other, float[] target){
+
+			for(int face : facesOf.get(moving)){
+				if(faceRemoved[face]){
+					continue;
+				}
+				int[] corners = faces[face];
+				if(corners[0] == other || corners[1] == other || corners[2] == other){
+					continue;
+				}
+				float[] before = normal(position[corners[0]], position[corners[1]], position[corners[2]]);
+				// A face that already has no area has no side to flip to
+				if(before[0] == 0 && before[1] == 0 && before[2] == 0){
+					continue;
+				}
+				float[] after = normal(
+						corners[0] == moving ? target : position[corners[0]],
+						corners[1] == moving ? target : position[corners[1]],
+						corners[2] == moving ? target : position[corners[2]]);
+				if((before[0] * after[0]) + (before[1] * after[1]) + (before[2] * after[2]) <= 0){
+					return true;
+				}
+			}
+			return false;
+
+		}
+
+
+		/**
+		 * Pushes each remaining vertex out along its normal far enough that the points of the original surface
+		 * merged into it, and into its neighbours, no longer stick out through the faces around it.
+		 *
+		 * @return
+		 * 				- true if any vertex had to move.
+		 */
+		protected boolean inflate(){
+
+			// How far any point sticks out beyond each face. Each point is measured against the nearest face
+			// around the vertices its triangle's corners were merged into or those vertices' neighbours
+			float[] beyond = new float[faces.length];
+			float[] closest = new float[3];
+			for(int i = 0; i < samples.length; i++){
+
+				float[] sample = samples[i];
+				Set<Integer> nearby = new HashSet<Integer>();
+				for(int corner : sampleCorners[i]){
+					int into = find(corner);
+					nearby.addAll(facesOf.get(into));
+					for(int neighbour : neighbours(into)){
+						nearby.addAll(facesOf.get(neighbour));
+					}
+				}
+
+				int nearest = -1;
+				float nearestDistance = Float.MAX_VALUE;
+				for(int face : nearby){
+					PrimitiveDetector.closestPointOnTriangle(sample, position[faces[face][0]], position[faces[face][1]], position[faces[face][2]], closest);
+					float dx = sample[0] - closest[0];
+					float dy = sample[1] - closest[1];
+					float dz = sample[2] - closest[2];
+					float distance = (dx * dx) + (dy * dy) + (dz * dz);
+					if(distance < nearestDistance){
+						nearestDistance = distance;
+						nearest = face;
+					}
+				}
+				if(nearest == -1){
+					continue;
+				}
+
+				float[] n = normal(position[faces[nearest][0]], position[faces[nearest][1]], position[faces[nearest][2]]);
+				float[] p = position[faces[nearest][0]];
+				float distance = (n[0] * (sample[0] - p[0])) + (n[1] * (sample[1] - p[1])) + (n[2] * (sample[2] - p[2]));
+				// Rounding leaves points on a face a hair outside it, which would keep the pushing from ever settling
+				if(distance > tolerance){
+					beyond[nearest] = Math.max(beyond[nearest], distance);
+				}
+			}
+
+			float[][] pushed = new float[position.length][];
+			boolean moved = false;
+			for(int v = 0; v < position.length; v++){
+
+				if(removed[v]){
+					continue;
+				}
+				float[] vertexNormal = new float[3];
+				for(int face : facesOf.get(v)){
+					float[] n = normal(position[faces[face][0]], position[faces[face][1]], position[faces[face][2]]);
+					vertexNormal[0] += n[0];
+					vertexNormal[1] += n[1];
+					vertexNormal[2] += n[2];
+				}
+				float length = (float) Math.sqrt((vertexNormal[0] * vertexNormal[0]) + (vertexNormal[1] * vertexNormal[1]) + (vertexNormal[2] * vertexNormal[2]));
+				if(length == 0){
+					pushed[v] = position[v];
+					continue;
+				}
+				vertexNormal[0] /= length;
+				vertexNormal[1] /= length;
+				vertexNormal[2] /= length;
+
+				// A face leaning away from the vertex normal only moves by the cosine of the angle, so the vertex must move further
+				float offset = 0;
+				for(int face : facesOf.get(v)){
+					if(beyond[face] <= 0){
+						continue;
+					}
+					float[] n = normal(position[faces[face][0]], position[faces[face][1]], position[faces[face][2]]);
+					float cosine = Math.max(0.25f, (n[0] * vertexNormal[0]) + (n[1] * vertexNormal[1]) + (n[2] * vertexNormal[2]));
+					offset = Math.max(offset, beyond[face] / cosine);
+				}
+				moved |= offset > 0;
+				pushed[v] = new float[]{
+						position[v][0] + (vertexNormal[0] * offset),
+						position[v][1] + (vertexNormal[1] * offset),
+						position[v][2] + (vertexNormal[2] * offset)};
+			}
+			position = pushed;
+			return moved;
+
+		}
+
+
+		/**
+		 * Checks every point of the original surface against the whole simplified mesh, not just the faces near it.
+		 *
+		 * @return
+		 * 				- true if every point is inside the simplified mesh or within the tolerance of its surface.
+		 */
+		protected boolean covers(){
+
+			float[] closest = new float[3];
+			for(float[] sample : samples){
+
+				int crossings = 0;
+				float nearestDistance = Float.MAX_VALUE;
+				for(int face = 0; face < faces.length; face++){
+					if(faceRemoved[face]){
+						continue;
+					}
+					float[] a = position[faces[face][0]];
+					float[] b = position[faces[face][1]];
+					float[] c = position[faces[face][2]];
+					if(PrimitiveDetector.rayCrossesTriangle(sample, a, b, c)){
+						crossings++;
+					}
+					PrimitiveDetector.closestPointOnTriangle(sample, a, b, c, closest);
+					float dx = sample[0] - closest[0];
+					float dy = sample[1] - closest[1];
+					float dz = sample[2] - closest[2];
+					nearestDistance = Math.min(nearestDistance, (dx * dx) + (dy * dy) + (dz * dz));
+				}
+				if((crossings & 1) == 0 && nearestDistance > tolerance * tolerance){
+					return false;
+				}
+			}
+			return true;
+
+		}
+
+
+		protected CollisionMesh toMesh(){
+
+			int[] remap = new int[position.length];
+			int used = 0;
+			for(int v = 0; v < position.length; v++){
+				remap[v] = removed[v] ? -1 : used++;
+			}
+
+			float[] vertices = new float[used * 3];
+			for(int v = 0; v < position.length; v++){
+				if(remap[v] != -1){
+					vertices[3 * remap[v]] = position[v][0];
+					vertices[(3 * remap[v]) + 1] = position[v][1];
+					vertices[(3 * remap[v]) + 2] = position[v][2];
+				}
+			}
+
+			int[] indices = new int[liveFaces * 3];
+			int next = 0;
+			for(int i = 0; i < faces.length; i++){
+				if(!faceRemoved[i]){
+					indices[next++] = remap[faces[i][0]];
+					indices[next++] = remap[faces[i][1]];
+					indices[next++] = remap[faces[i][2]];
+				}
+			}
+			return CollisionMesh.fromTriangles(vertices, indices);
+
+		}
+
+
+		/**
+		 * Queues the collapse of an edge at the cost of its cheapest merge point.
+		 */
+		private void offer(int a, int b){
+
+			Collapse collapse = new Collapse();
+			collapse.a = a;
+			collapse.b = b;
+			collapse.versionA = version[a];
+			collapse.versionB = version[b];
+			collapse.cost = error(combined(a, b), candidates(a, b)[0]);
+			queue.add(collapse);
+
+		}
+
+
+		/**
+		 * Picks where the two ends of an edge merge to: whichever of the two ends or the midpoint has the lowest
+		 * error without turning a face inside out.
+		 *
+		 * @return
+		 * 				- The merge point, or null if every candidate flips a face or costs more than allowed.
+		 */
+		private float[] chooseTarget(int a, int b, double maxCost){
+
+			double[] q = combined(a, b);
+			for(float[] target : candidates(a, b)){
+				if(error(q, target) > maxCost){
+					return null;
+				}
+				if(!flips(a, b, target) && !flips(b, a, target)){
+					return target;
+				}
+			}
+			return null;
+
+		}
+
+		/**
+		 * The possible merge points of an edge, cheapest first.
+		 */
+		private float[][] candidates(int a, int b){
+
+			final double[] q = combined(a, b);
+			float[][] candidates = new float[][]{
+				position[a].clone(),
+				position[b].clone(),
+				new float[]{
+					(position[a][0] + position[b][0]) / 2f,
+					(position[a][1] + position[b][1]) / 2f,
+					(position[a][2] + position[b][2]) / 2f}
+			};
+			Arrays.sort(candidates, (x, y) -> Double.compare(error(q, x), error(q, y)));
+			return candidates;
+
+		}
+
+		private double[] combined(int a, int b){
+			double[] q = new double[10];
+			for(int i = 0; i < 10; i++){
+				q[i] = quadric[a][i] + quadric[b][i];
+			}
+			return q;
+		}
+
+		private Set<Integer> neighbours(int v){
+			Set<Integer> neighbours = new HashSet<Integer>();
+			for(int face : facesOf.get(v)){
+				for(int corner : faces[face]){
+					if(corner != v){
+						neighbours.add(corner);
+					}
+				}
+			}
+			return neighbours;
+		}
+
+		private int find(int v){
+			while(mergedInto[v] != v){
+				v = mergedInto[v];
+			}
+			return v;
+		}
+
+		private double[] plane(int face){
+			float[] n = normal(position[faces[face][0]], position[faces[face][1]], position[faces[face][2]]);
+			float[] p = position[faces[face][0]];
+			return new double[]{n[0], n[1], n[2], -((n[0] * p[0]) + (n[1] * p[1]) + (n[2] * p[2]))};
+		}
+	}
+
+
+	/**
+	 * Adds the quadric of a plane {a, b, c, d}, stored as the upper half of the symmetric 4x4 matrix pp^T.
+	 */
+	private static void addPlane(double[] q, double[] p){
+		q[0] += p[0] * p[0];
+		q[1] += p[0] * p[1];
+		q[2] += p[0] * p[2];
+		q[3] += p[0] * p[3];
+		q[4] += p[1] * p[1];
+		q[5] += p[1] * p[2];
+		q[6] += p[1] * p[3];
+		q[7] += p[2] * p[2];
+		q[8] += p[2] * p[3];
+		q[9] += p[3] * p[3];
+	}
+
+	/**
+	 * The sum of squared distances from a point to the planes in a quadric, v^T Q v for v = {x, y, z, 1}
+	 */
+	private static double error(double[] q, float[] v){
+		double x = v[0];
+		double y = v[1];
+		double z = v[2];
+		return (q[0] * x * x) + (2 * q[1] * x * y) + (2 * q[2] * x * z) + (2 * q[3] * x)
+				+ (q[4] * y * y) + (2 * q[5] * y * z) + (2 * q[6] * y)
+				+ (q[7] * z * z) + (2 * q[8] * z)
+				+ q[9];
+	}
+
+	private static float[] normal(float[] a, float[] b, float[] c){
+		float ux = b[0] - a[0];
+		float uy = b[1] - a[1];
+		float uz = b[2] - a[2];
+		float vx = c[0] - a[0];
+		float vy = c[1] - a[1];
+		float vz = c[2] - a[2];
+		float nx = (uy * vz) - (uz * vy);
+		float ny = (uz * vx) - (ux * vz);
+		float nz = (ux * vy) - (uy * vx);
+		float length = (float) Math.sqrt((nx * nx) + (ny * ny) + (nz * nz));
+		return length == 0 ? new float[]{0, 0, 0} : new float[]{nx / length, ny / length, nz / length};
+	}
+
+
+	/**
+	 * A queued edge collapse. The versions record the state of the two vertices when it was queued,
+	 * so that collapses made stale by a neighbouring collapse can be skipped.
+	 */
+	private static class Collapse{
+		int a;
+		int b;
+		int versionA;
+		int versionB;
+		double cost;
+	}
+
+	/**
+	 * An exact vertex position, used to weld repeated vertices.
+	 */
+	private static class Key{
+
+		float x;
+		float y;
+		float z;
+
+		protected Key(float x, float y, float z){
+			// Adding zero turns -0 into 0, which Float.compare would otherwise keep apart and leave a seam open
+			this.x = x + 0f;
+			this.y = y + 0f;
+			this.z = z + 0f;
+		}
+
+		@Override
+		public boolean equals(Object o){
+			if(!(o instanceof Key)){
+				return false;
+			}
+			Key other = (Key) o;
+			return Float.compare(x, other.x) == 0 && Float.compare(y, other.y) == 0 && Float.compare(z, other.z) == 0;
+		}
+
+		@Override
+		public int hashCode(){
+			return (31 * ((31 * Float.floatToIntBits(x)) + Float.floatToIntBits(y))) + Float.floatToIntBits(z);
+		}
+	}
+
+}
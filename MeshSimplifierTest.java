@@ -0,0 +1,145 @@
+package com.tut.tutorial;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class MeshSimplifierTest {
+
+	private static final int RINGS = 12;
+	private static final int SEGMENTS = 24;
+
+
+	/**
+	 * A sphere of radius about 1 with three bulges around its middle, so collapses cut into its surface.
+	 */
+	private static float[] bumpySphereVertices(){
+
+		float[] vertices = new float[(RINGS + 1) * SEGMENTS * 3];
+		for(int i = 0; i <= RINGS; i++){
+			for(int j = 0; j < SEGMENTS; j++){
+				double theta = Math.PI * i / RINGS;
+				double phi = 2 * Math.PI * j / SEGMENTS;
+				// Exactly zero at the poles, so every segment's copy of a pole welds into one vertex
+				double ring = (i == 0 || i == RINGS) ? 0 : Math.sin(theta);
+				double r = 1 + (0.2 * Math.sin(3 * phi) * ring);
+				int v = 3 * ((i * SEGMENTS) + j);
+				vertices[v] = (float) (r * ring * Math.cos(phi));
+				vertices[v + 1] = (float) (r * Math.cos(theta));
+				vertices[v + 2] = (float) (r * ring * Math.sin(phi));
+			}
+		}
+		return vertices;
+
+	}
+
+	private static int[] bumpySphereIndices(){
+
+		int[] indices = new int[RINGS * SEGMENTS * 6];
+		int next = 0;
+		for(int i = 0; i < RINGS; i++){
+			for(int j = 0; j < SEGMENTS; j++){
+				int p = (i * SEGMENTS) + j;
+				int q = (i * SEGMENTS) + ((j + 1) % SEGMENTS);
+				int r = ((i + 1) * SEGMENTS) + j;
+				int s = ((i + 1) * SEGMENTS) + ((j + 1) % SEGMENTS);
+				indices[next++] = p;
+				indices[next++] = q;
+				indices[next++] = r;
+				indices[next++] = q;
+				indices[next++] = s;
+				indices[next++] = r;
+			}
+		}
+		return indices;
+
+	}
+
+	/**
+	 * Counts the triangles crossed by a ray from the point, an odd count puts the point inside.
+	 */
+	private static boolean inside(CollisionMesh mesh, double x, double y, double z){
+
+		float[] v = mesh.getVertices();
+		int[] indices = mesh.getIndices();
+		double dx = 0.5771;
+		double dy = 0.5723;
+		double dz = 0.5827;
+		int crossings = 0;
+		for(int f = 0; f < indices.length/3; f++){
+			int a = 3 * indices[3 * f];
+			int b = 3 * indices[(3 * f) + 1];
+			int c = 3 * indices[(3 * f) + 2];
+			double e1x = v[b] - v[a], e1y = v[b + 1] - v[a + 1], e1z = v[b + 2] - v[a + 2];
+			double e2x = v[c] - v[a], e2y = v[c + 1] - v[a + 1], e2z = v[c + 2] - v[a + 2];
+			double hx = (dy * e2z) - (dz * e2y), hy = (dz * e2x) - (dx * e2z), hz = (dx * e2y) - (dy * e2x);
+			double determinant = (e1x * hx) + (e1y * hy) + (e1z * hz);
+			if(determinant == 0){
+				continue;
+			}
+			double sx = x - v[a], sy = y - v[a + 1], sz = z - v[a + 2];
+			double u = ((sx * hx) + (sy * hy) + (sz * hz)) / determinant;
+			if(u < 0 || u > 1){
+				continue;
+			}
+			double qx = (sy * e1z) - (sz * e1y), qy = (sz * e1x) - (sx * e1z), qz = (sx * e1y) - (sy * e1x);
+			double w = ((dx * qx) + (dy * qy) + (dz * qz)) / determinant;
+			if(w < 0 || u + w > 1){
+				continue;
+			}
+			if(((e2x * qx) + (e2y * qy) + (e2z * qz)) / determinant > 0){
+				crossings++;
+			}
+		}
+		return (crossings & 1) == 1;
+
+	}
+
+
+	@Test
+	public void simplifiedMeshContainsOriginalSurface() {
+
+		float[] vertices = bumpySphereVertices();
+		int[] indices = bumpySphereIndices();
+
+		for(float ratio : new float[]{0.5f, 0.25f, 0.1f}){
+
+			CollisionMesh simplified = MeshSimplifier.simplify(vertices, indices, ratio, 1000);
+			assertTrue("ratio " + ratio, simplified.getIndices().length < indices.length);
+
+			// Points across every original triangle, drawn in a hair towards the centre so those on a shared face count as inside
+			int steps = 5;
+			for(int f = 0; f < indices.length/3; f++){
+				int a = 3 * indices[3 * f];
+				int b = 3 * indices[(3 * f) + 1];
+				int c = 3 * indices[(3 * f) + 2];
+				for(int i = 0; i <= steps; i++){
+					for(int j = 0; i + j <= steps; j++){
+						double u = i / (double) steps;
+						double w = j / (double) steps;
+						double x = vertices[a] + (u * (vertices[b] - vertices[a])) + (w * (vertices[c] - vertices[a]));
+						double y = vertices[a + 1] + (u * (vertices[b + 1] - vertices[a + 1])) + (w * (vertices[c + 1] - vertices[a + 1]));
+						double z = vertices[a + 2] + (u * (vertices[b + 2] - vertices[a + 2])) + (w * (vertices[c + 2] - vertices[a + 2]));
+						assertTrue("ratio " + ratio + " face " + f, inside(simplified, x * 0.999, y * 0.999, z * 0.999));
+					}
+				}
+			}
+		}
+
+	}
+
+	@Test
+	public void flatMeshSimplifiesToASolid() {
+
+		CollisionMesh simplified = MeshSimplifier.simplify(TestShapes.QUAD, TestShapes.QUAD_INDICES, 0.5f, 1000);
+		assertTrue(simplified.getIndices().length > 0);
+		assertTrue(simplified.getNormals().length > 0);
+		for(double x = -0.999; x < 1; x += 0.333){
+			for(double z = -0.999; z < 1; z += 0.333){
+				assertTrue(x + ", " + z, inside(simplified, x, 0, z));
+			}
+		}
+
+	}
+
+}
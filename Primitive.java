@@ -0,0 +1,136 @@
+package com.tut.tutorial;
+
+/**
+ *
+ * A simple analytic shape that an {@link Entity} can carry in place of its mesh for collision
+ * detection. Spheres, capsules and boxes can be tested against each other with a few lines of
+ * arithmetic instead of visiting every vertex, see {@link PrimitiveDetector}.
+ *
+ * The shape is defined in model space, so it moves, rotates and scales with its entity in the
+ * same way the mesh would. Capsules run along the model's y axis.
+ *
+ * @author CAISBlogss
+ *
+ */
+public class Primitive {
+
+	/**
+	 * The kinds of primitive available.
+	 */
+	public enum Type {
+		SPHERE,
+		CAPSULE,
+		BOX
+	}
+
+	private Type type;
+
+	private float offsetX;
+	private float offsetY;
+	private float offsetZ;
+
+	private float radius;
+	private float halfHeight;
+	private float[] halfExtents;
+
+
+	private Primitive(Type type, float radius, float halfHeight, float[] halfExtents){
+
+		this.type = type;
+		this.radius = radius;
+		this.halfHeight = halfHeight;
+		this.halfExtents = halfExtents;
+
+	}
+
+
+	/**
+	 * @param radius
+	 * 				- The radius of the sphere in model space.
+	 *
+	 * @return
+	 * 				- A sphere centred on the model's origin.
+	 */
+	public static Primitive sphere(float radius){
+		return new Primitive(Type.SPHERE, radius, 0, new float[]{radius, radius, radius});
+	}
+
+
+	/**
+	 * @param radius
+	 * 				- The radius of the capsule in model space.
+	 * @param halfHeight
+	 * 				- Half the length of the line the capsule is swept along, not including the rounded ends.
+	 *
+	 * @return
+	 * 				- A capsule centred on the model's origin, running along the model's y axis.
+	 */
+	public static Primitive capsule(float radius, float halfHeight){
+		return new Primitive(Type.CAPSULE, radius, halfHeight, new float[]{radius, radius + halfHeight, radius});
+	}
+
+
+	/**
+	 * @param halfX
+	 * 				- Half the width of the box in model space.
+	 * @param halfY
+	 * 				- Half the height of the box in model space.
+	 * @param halfZ
+	 * 				- Half the depth of the box in model space.
+	 *
+	 * @return
+	 * 				- A box centred on the model's origin, aligned with the model's axes.
+	 */
+	public static Primitive box(float halfX, float halfY, float halfZ){
+		return new Primitive(Type.BOX, 0, 0, new float[]{halfX, halfY, halfZ});
+	}
+
+
+	/**
+	 * Moves the centre of the shape away from the model's origin.
+	 *
+	 * @return
+	 * 				- This primitive, so calls can be chained onto the factory methods.
+	 */
+	public Primitive offset(float x, float y, float z){
+
+		this.offsetX = x;
+		this.offsetY = y;
+		this.offsetZ = z;
+		return this;
+
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public float getOffsetX() {
+		return offsetX;
+	}
+
+	public float getOffsetY() {
+		return offsetY;
+	}
+
+	public float getOffsetZ() {
+		return offsetZ;
+	}
+
+	public float getRadius() {
+		return radius;
+	}
+
+	public float getHalfHeight() {
+		return halfHeight;
+	}
+
+	/**
+	 * @return
+	 * 				- Half the size of the shape along each model axis, for spheres and capsules this is the size of the box around them.
+	 */
+	public float[] getHalfExtents() {
+		return halfExtents;
+	}
+
+}
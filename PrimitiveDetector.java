@@ -0,0 +1,786 @@
+package com.tut.tutorial;
+
+
+/**
+ *
+ * Runs closed form tests between entities that carry a {@link Primitive} instead of relying on
+ * their mesh. Every pairing of sphere, capsule, box and mesh has its own test, chosen through a
+ * table indexed by the types of the two entities, so the cost of a test depends only on the shapes
+ * involved: two spheres cost a handful of multiplications whatever their meshes look like.
+ *
+ * Where only one of the entities is a mesh the primitive is moved into the model space of the mesh,
+ * so the mesh's vertices are used as they are stored rather than being transformed one by one.
+ * Primitives are tested against the surface of a mesh, and a primitive touching no triangle is
+ * still a collision when it lies wholly inside the mesh. Two meshes fall back to the {@link HyperPlaneDetector}.
+ *
+ * The working values of a test live in arrays kept for each thread, so a test allocates nothing.
+ *
+ * @author CAISBlogss
+ *
+ */
+public class PrimitiveDetector {
+
+	/**
+	 * A collision test between two entities whose shape types are known.
+	 */
+	private interface PairTest {
+		boolean doesCollide(Entity primary, Entity secondary, double[] origin, Scratch scratch);
+	}
+
+	private static final int SPHERE = Primitive.Type.SPHERE.ordinal();
+	private static final int CAPSULE = Primitive.Type.CAPSULE.ordinal();
+	private static final int BOX = Primitive.Type.BOX.ordinal();
+	private static final int MESH = Primitive.Type.values().length;
+
+	private static final PairTest[][] TESTS = new PairTest[MESH + 1][MESH + 1];
+
+	// The direction rays are cast in to find whether a point is inside a mesh, skewed so it is unlikely to run along an edge
+	private static final float RAY_X = 0.4527f;
+	private static final float RAY_Y = 0.7812f;
+	private static final float RAY_Z = 0.4291f;
+
+	private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+	static {
+		register(SPHERE, SPHERE, (a, b, o, s) -> sphereSphere(shape(a, o, s, s.first), shape(b, o, s, s.second)));
+		register(SPHERE, CAPSULE, (a, b, o, s) -> sphereCapsule(shape(a, o, s, s.first), shape(b, o, s, s.second)));
+		register(SPHERE, BOX, (a, b, o, s) -> sphereBox(shape(a, o, s, s.first), shape(b, o, s, s.second)));
+		register(CAPSULE, CAPSULE, (a, b, o, s) -> capsuleCapsule(shape(a, o, s, s.first), shape(b, o, s, s.second)));
+		register(CAPSULE, BOX, (a, b, o, s) -> capsuleBox(shape(a, o, s, s.first), shape(b, o, s, s.second), s));
+		register(BOX, BOX, (a, b, o, s) -> boxBox(shape(a, o, s, s.first), shape(b, o, s, s.second), s));
+		register(SPHERE, MESH, (a, b, o, s) -> primitiveMesh(a, b, o, s));
+		register(CAPSULE, MESH, (a, b, o, s) -> primitiveMesh(a, b, o, s));
+		register(BOX, MESH, (a, b, o, s) -> primitiveMesh(a, b, o, s));
+		register(MESH, MESH, (a, b, o, s) -> HyperPlaneDetector.doesCollide(a, b));
+	}
+
+
+	/**
+	 * Runs the test suited to the shapes of the two entities, returning the collision
+	 * state as a boolean value.
+	 *
+	 * @param primary
+	 * 				- An entity to check collision. Order insignificant.
+	 * @param secondary
+	 *           	- Another entity to check collision. Order insignificant.
+	 *
+	 * @return
+	 * 				- The collision state: true if there is a collision, false if there is no collision.
+	 */
+	public static boolean doesCollide(Entity primary, Entity secondary){
+		double[] origin = Maths.findPairOrigin(primary, secondary);
+		return TESTS[typeOf(primary)][typeOf(secondary)].doesCollide(primary, secondary, origin, SCRATCH.get());
+	}
+
+
+	/**
+	 * Stores a test for a pair of types, along with the same test with its arguments swapped for the reverse pair.
+	 */
+	private static void register(int first, int second, PairTest test){
+		TESTS[first][second] = test;
+		if(first != second){
+			TESTS[second][first] = (a, b, o, s) -> test.doesCollide(b, a, o, s);
+		}
+	}
+
+	private static int typeOf(Entity e){
+		return e.getPrimitive() == null ? MESH : e.getPrimitive().getType().ordinal();
+	}
+
+
+	private static boolean sphereSphere(Shape a, Shape b){
+
+		float reach = a.radius + b.radius;
+		return distanceSquared(a.centre, b.centre) <= reach * reach;
+
+	}
+
+	private static boolean sphereCapsule(Shape sphere, Shape capsule){
+
+		float reach = sphere.radius + capsule.radius;
+		return pointSegmentDistanceSquared(sphere.centre, capsule.start, capsule.end) <= reach * reach;
+
+	}
+
+	private static boolean sphereBox(Shape sphere, Shape box){
+
+		// Distance from the centre to the box along each of the box's axes, beyond its half extent
+		float dx = sphere.centre[0] - box.centre[0];
+		float dy = sphere.centre[1] - box.centre[1];
+		float dz = sphere.centre[2] - box.centre[2];
+		float distanceSquared = 0;
+		for(int i = 0; i < 3; i++){
+			float[] axis = box.axes[i];
+			float along = Math.abs((dx * axis[0]) + (dy * axis[1]) + (dz * axis[2]));
+			if(along > box.extents[i]){
+				distanceSquared += (along - box.extents[i]) * (along - box.extents[i]);
+			}
+		}
+		return distanceSquared <= sphere.radius * sphere.radius;
+
+	}
+
+	private static boolean capsuleCapsule(Shape a, Shape b){
+
+		float reach = a.radius + b.radius;
+		return segmentSegmentDistanceSquared(a.start, a.end, b.start, b.end) <= reach * reach;
+
+	}
+
+	private static boolean capsuleBox(Shape capsule, Shape box, Scratch s){
+
+		// In the box's frame the box runs from -extents to +extents, so it can be split into twelve triangles
+		float[] p = box.toLocal(capsule.start, s.p);
+		float[] q = box.toLocal(capsule.end, s.q);
+		float[] e = box.extents;
+
+		if(insideBox(p, e) || insideBox(q, e)){
+			return true;
+		}
+
+		float r2 = capsule.radius * capsule.radius;
+		float[][] corners = s.corners;
+		for(int i = 0; i < 8; i++){
+			set(corners[i], (i & 1) == 0 ? -e[0] : e[0], (i & 2) == 0 ? -e[1] : e[1], (i & 4) == 0 ? -e[2] : e[2]);
+		}
+		for(int i = 0; i < BOX_FACES.length; i += 3){
+			if(segmentTriangleDistanceSquared(p, q, corners[BOX_FACES[i]], corners[BOX_FACES[i + 1]], corners[BOX_FACES[i + 2]], s.closest) <= r2){
+				return true;
+			}
+		}
+		return false;
+
+	}
+
+	/** The twelve triangles of a box, as indices into its corners where bit 0, 1 and 2 pick the positive x, y and z side */
+	private static final int[] BOX_FACES = new int[]{
+		0, 2, 1,  1, 2, 3,
+		4, 5, 6,  5, 7, 6,
+		0, 1, 4,  1, 5, 4,
+		2, 6, 3,  3, 6, 7,
+		0, 4, 2,  2, 4, 6,
+		1, 3, 5,  3, 7, 5
+	};
+
+	private static boolean insideBox(float[] point, float[] extents){
+		return Math.abs(point[0]) <= extents[0] && Math.abs(point[1]) <= extents[1] && Math.abs(point[2]) <= extents[2];
+	}
+
+
+	/**
+	 * Separating axis test between two oriented boxes. Two boxes are apart if and only if there is a line,
+	 * along one of the fifteen axes made from the boxes' face normals and the cross products of their edges,
+	 * on which their projections do not overlap.
+	 */
+	private static boolean boxBox(Shape a, Shape b, Scratch s){
+
+		float epsilon = 1e-6f;
+		float[][] r = s.rotation;
+		float[][] absR = s.absRotation;
+		for(int i = 0; i < 3; i++){
+			for(int j = 0; j < 3; j++){
+				r[i][j] = dot(a.axes[i], b.axes[j]);
+				// Nearly parallel edges give a cross product close to zero, padding stops rounding error claiming a separation
+				absR[i][j] = Math.abs(r[i][j]) + epsilon;
+			}
+		}
+
+		float[] t = a.toLocal(b.centre, s.p);
+		float[] ea = a.extents;
+		float[] eb = b.extents;
+
+		// The face normals of a
+		for(int i = 0; i < 3; i++){
+			if(Math.abs(t[i]) > ea[i] + (eb[0] * absR[i][0]) + (eb[1] * absR[i][1]) + (eb[2] * absR[i][2])){
+				return false;
+			}
+		}
+
+		// The face normals of b
+		for(int j = 0; j < 3; j++){
+			float projected = (t[0] * r[0][j]) + (t[1] * r[1][j]) + (t[2] * r[2][j]);
+			if(Math.abs(projected) > (ea[0] * absR[0][j]) + (ea[1] * absR[1][j]) + (ea[2] * absR[2][j]) + eb[j]){
+				return false;
+			}
+		}
+
+		// The cross products of an edge of a with an edge of b
+		for(int i = 0; i < 3; i++){
+			int i1 = (i + 1) % 3;
+			int i2 = (i + 2) % 3;
+			for(int j = 0; j < 3; j++){
+				int j1 = (j + 1) % 3;
+				int j2 = (j + 2) % 3;
+				float radiusA = (ea[i1] * absR[i2][j]) + (ea[i2] * absR[i1][j]);
+				float radiusB = (eb[j1] * absR[i][j2]) + (eb[j2] * absR[i][j1]);
+				if(Math.abs((t[i2] * r[i1][j]) - (t[i1] * r[i2][j])) > radiusA + radiusB){
+					return false;
+				}
+			}
+		}
+
+		return true;
+
+	}
+
+
+	/**
+	 * Tests a primitive against every triangle of a mesh, working in the mesh's model space. The model
+	 * space bounds of the mesh are checked first so that distant primitives never visit a triangle.
+	 *
+	 * A primitive touching no triangle is either wholly inside or wholly outside the mesh, so while the
+	 * triangles are visited a ray is cast from the primitive's centre and the triangles it crosses are
+	 * counted: an odd count puts the centre, and so the whole primitive, inside. This assumes the mesh is closed.
+	 */
+	private static boolean primitiveMesh(Entity primitive, Entity mesh, double[] origin, Scratch s){
+
+		Shape world = shape(primitive, origin, s, s.first);
+		Maths.loadTransformation(mesh, origin, s.transformation, 0);
+		Shape shape = world.toModelSpace(s.transformation, s.second);
+
+		float[] bounds = mesh.getLocalBounds();
+		for(int i = 0; i < 3; i++){
+			float reach = shape.reach(i);
+			if(shape.centre[i] - reach > bounds[(2 * i) + 1] || shape.centre[i] + reach < bounds[2 * i]){
+				return false;
+			}
+		}
+
+		float[] vertices = mesh.getVertices();
+		int[] indices = mesh.getIndices();
+		float r2 = shape.radius * shape.radius;
+		float[] a = s.a;
+		float[] b = s.b;
+		float[] c = s.c;
+		int crossings = 0;
+
+		for(int i = 0; i < indices.length/3; i++){
+
+			vertex(vertices, indices[3 * i], a);
+			vertex(vertices, indices[(3 * i) + 1], b);
+			vertex(vertices, indices[(3 * i) + 2], c);
+
+			switch(shape.type){
+			case SPHERE:
+				if(distanceSquared(shape.centre, closestPointOnTriangle(shape.centre, a, b, c, s.closest)) <= r2){
+					return true;
+				}
+				break;
+			case CAPSULE:
+				if(segmentTriangleDistanceSquared(shape.start, shape.end, a, b, c, s.closest) <= r2){
+					return true;
+				}
+				break;
+			case BOX:
+				if(boxTriangle(shape, a, b, c, s)){
+					return true;
+				}
+				break;
+			}
+
+			if(rayCrossesTriangle(shape.centre, a, b, c)){
+				crossings++;
+			}
+		}
+		return (crossings & 1) == 1;
+
+	}
+
+
+	/**
+	 * Does the ray from the point along (RAY_X, RAY_Y, RAY_Z) pass through the triangle (Moller-Trumbore). Counting the
+	 * triangles of a closed mesh the ray crosses tells whether the point is inside it: it is if the count is odd.
+	 */
+	static boolean rayCrossesTriangle(float[] point, float[] a, float[] b, float[] c){
+
+		float abx = b[0] - a[0];
+		float aby = b[1] - a[1];
+		float abz = b[2] - a[2];
+		float acx = c[0] - a[0];
+		float acy = c[1] - a[1];
+		float acz = c[2] - a[2];
+
+		// The ray's direction crossed with ac
+		float px = (RAY_Y * acz) - (RAY_Z * acy);
+		float py = (RAY_Z * acx) - (RAY_X * acz);
+		float pz = (RAY_X * acy) - (RAY_Y * acx);
+		float determinant = (abx * px) + (aby * py) + (abz * pz);
+		if(determinant == 0){
+			return false;
+		}
+		float inverse = 1f / determinant;
+
+		float tx = point[0] - a[0];
+		float ty = point[1] - a[1];
+		float tz = point[2] - a[2];
+		float u = ((tx * px) + (ty * py) + (tz * pz)) * inverse;
+		if(u < 0 || u > 1){
+			return false;
+		}
+
+		float qx = (ty * abz) - (tz * aby);
+		float qy = (tz * abx) - (tx * abz);
+		float qz = (tx * aby) - (ty * abx);
+		float v = ((RAY_X * qx) + (RAY_Y * qy) + (RAY_Z * qz)) * inverse;
+		if(v < 0 || u + v > 1){
+			return false;
+		}
+
+		// How far along the ray the triangle is crossed
+		return ((acx * qx) + (acy * qy) + (acz * qz)) * inverse > 0;
+
+	}
+
+
+	/**
+	 * Separating axis test between an oriented box and a triangle (Akenine-Moller). Working in the box's frame
+	 * the candidate axes are the box's face normals, the triangle's normal and the cross products of the box's
+	 * axes with the triangle's edges.
+	 */
+	private static boolean boxTriangle(Shape box, float[] a, float[] b, float[] c, Scratch s){
+
+		float[] e = box.extents;
+		float[][] v = s.triangle;
+		box.toLocal(a, v[0]);
+		box.toLocal(b, v[1]);
+		box.toLocal(c, v[2]);
+
+		for(int i = 0; i < 3; i++){
+			float min = Math.min(v[0][i], Math.min(v[1][i], v[2][i]));
+			float max = Math.max(v[0][i], Math.max(v[1][i], v[2][i]));
+			if(min > e[i] || max < -e[i]){
+				return false;
+			}
+		}
+
+		float[][] edges = s.edges;
+		sub(v[1], v[0], edges[0]);
+		sub(v[2], v[1], edges[1]);
+		sub(v[0], v[2], edges[2]);
+		float[] axis = s.axis;
+		if(!overlapsOnAxis(cross(edges[0], edges[1], axis), v, e)){
+			return false;
+		}
+
+		// The cross product of box axis i with an edge, the box's axes being x, y and z in its own frame
+		for(int i = 0; i < 3; i++){
+			for(int j = 0; j < 3; j++){
+				float[] edge = edges[j];
+				switch(i){
+				case 0:
+					set(axis, 0, -edge[2], edge[1]);
+					break;
+				case 1:
+					set(axis, edge[2], 0, -edge[0]);
+					break;
+				default:
+					set(axis, -edge[1], edge[0], 0);
+					break;
+				}
+				if(!overlapsOnAxis(axis, v, e)){
+					return false;
+				}
+			}
+		}
+		return true;
+
+	}
+
+	/**
+	 * Do the triangle and a box centred on the origin overlap when both are projected onto the axis
+	 */
+	private static boolean overlapsOnAxis(float[] axis, float[][] triangle, float[] extents){
+
+		float p0 = dot(axis, triangle[0]);
+		float p1 = dot(axis, triangle[1]);
+		float p2 = dot(axis, triangle[2]);
+		float boxRadius = (extents[0] * Math.abs(axis[0])) + (extents[1] * Math.abs(axis[1])) + (extents[2] * Math.abs(axis[2]));
+		return !(Math.min(p0, Math.min(p1, p2)) > boxRadius || Math.max(p0, Math.max(p1, p2)) < -boxRadius);
+
+	}
+
+
+	/**
+	 * The squared distance between a segment and a triangle: zero if the segment passes through the
+	 * triangle, otherwise the closest of the segment's ends to the triangle or of the triangle's edges to the segment.
+	 * The closest points to the ends are worked out in the given array.
+	 */
+	private static float segmentTriangleDistanceSquared(float[] p, float[] q, float[] a, float[] b, float[] c, float[] closest){
+
+		if(segmentCrossesTriangle(p, q, a, b, c)){
+			return 0;
+		}
+		float best = distanceSquared(p, closestPointOnTriangle(p, a, b, c, closest));
+		best = Math.min(best, distanceSquared(q, closestPointOnTriangle(q, a, b, c, closest)));
+		best = Math.min(best, segmentSegmentDistanceSquared(p, q, a, b));
+		best = Math.min(best, segmentSegmentDistanceSquared(p, q, b, c));
+		best = Math.min(best, segmentSegmentDistanceSquared(p, q, c, a));
+		return best;
+
+	}
+
+	private static boolean segmentCrossesTriangle(float[] p, float[] q, float[] a, float[] b, float[] c){
+
+		float abx = b[0] - a[0];
+		float aby = b[1] - a[1];
+		float abz = b[2] - a[2];
+		float acx = c[0] - a[0];
+		float acy = c[1] - a[1];
+		float acz = c[2] - a[2];
+		float nx = (aby * acz) - (abz * acy);
+		float ny = (abz * acx) - (abx * acz);
+		float nz = (abx * acy) - (aby * acx);
+
+		float dp = (nx * (p[0] - a[0])) + (ny * (p[1] - a[1])) + (nz * (p[2] - a[2]));
+		float dq = (nx * (q[0] - a[0])) + (ny * (q[1] - a[1])) + (nz * (q[2] - a[2]));
+		if(dp * dq > 0 || dp == dq){
+			return false;
+		}
+		float t = dp / (dp - dq);
+		float hx = p[0] + (t * (q[0] - p[0]));
+		float hy = p[1] + (t * (q[1] - p[1]));
+		float hz = p[2] + (t * (q[2] - p[2]));
+
+		// The crossing point is inside if it is on the inner side of all three edges
+		return sideOfEdge(nx, ny, nz, a, b, hx, hy, hz) >= 0
+				&& sideOfEdge(nx, ny, nz, b, c, hx, hy, hz) >= 0
+				&& sideOfEdge(nx, ny, nz, c, a, hx, hy, hz) >= 0;
+
+	}
+
+	/**
+	 * The normal dotted with the edge from --> to crossed with the line from the start of the edge to the point
+	 */
+	private static float sideOfEdge(float nx, float ny, float nz, float[] from, float[] to, float x, float y, float z){
+
+		float ex = to[0] - from[0];
+		float ey = to[1] - from[1];
+		float ez = to[2] - from[2];
+		float hx = x - from[0];
+		float hy = y - from[1];
+		float hz = z - from[2];
+		return (nx * ((ey * hz) - (ez * hy))) + (ny * ((ez * hx) - (ex * hz))) + (nz * ((ex * hy) - (ey * hx)));
+
+	}
+
+
+	/**
+	 * The point on a triangle closest to a given point, see {@link #closestPointOnTriangle(float[], float[], float[], float[], float[])}.
+	 */
+	static float[] closestPointOnTriangle(float[] p, float[] a, float[] b, float[] c){
+		return closestPointOnTriangle(p, a, b, c, new float[3]);
+	}
+
+	/**
+	 * The point on a triangle closest to a given point, found by working out which of the triangle's
+	 * vertex, edge or face regions the point projects into (Ericson, Real-Time Collision Detection 5.1.5).
+	 * The point is written into dest, which is returned.
+	 */
+	static float[] closestPointOnTriangle(float[] p, float[] a, float[] b, float[] c, float[] dest){
+
+		float abx = b[0] - a[0];
+		float aby = b[1] - a[1];
+		float abz = b[2] - a[2];
+		float acx = c[0] - a[0];
+		float acy = c[1] - a[1];
+		float acz = c[2] - a[2];
+
+		float apx = p[0] - a[0];
+		float apy = p[1] - a[1];
+		float apz = p[2] - a[2];
+		float d1 = (abx * apx) + (aby * apy) + (abz * apz);
+		float d2 = (acx * apx) + (acy * apy) + (acz * apz);
+		if(d1 <= 0 && d2 <= 0){
+			return set(dest, a[0], a[1], a[2]);
+		}
+
+		float bpx = p[0] - b[0];
+		float bpy = p[1] - b[1];
+		float bpz = p[2] - b[2];
+		float d3 = (abx * bpx) + (aby * bpy) + (abz * bpz);
+		float d4 = (acx * bpx) + (acy * bpy) + (acz * bpz);
+		if(d3 >= 0 && d4 <= d3){
+			return set(dest, b[0], b[1], b[2]);
+		}
+
+		float vc = (d1 * d4) - (d3 * d2);
+		if(vc <= 0 && d1 >= 0 && d3 <= 0){
+			float t = d1 / (d1 - d3);
+			return set(dest, a[0] + (abx * t), a[1] + (aby * t), a[2] + (abz * t));
+		}
+
+		float cpx = p[0] - c[0];
+		float cpy = p[1] - c[1];
+		float cpz = p[2] - c[2];
+		float d5 = (abx * cpx) + (aby * cpy) + (abz * cpz);
+		float d6 = (acx * cpx) + (acy * cpy) + (acz * cpz);
+		if(d6 >= 0 && d5 <= d6){
+			return set(dest, c[0], c[1], c[2]);
+		}
+
+		float vb = (d5 * d2) - (d1 * d6);
+		if(vb <= 0 && d2 >= 0 && d6 <= 0){
+			float t = d2 / (d2 - d6);
+			return set(dest, a[0] + (acx * t), a[1] + (acy * t), a[2] + (acz * t));
+		}
+
+		float va = (d3 * d6) - (d5 * d4);
+		if(va <= 0 && (d4 - d3) >= 0 && (d5 - d6) >= 0){
+			float t = (d4 - d3) / ((d4 - d3) + (d5 - d6));
+			return set(dest, b[0] + ((c[0] - b[0]) * t), b[1] + ((c[1] - b[1]) * t), b[2] + ((c[2] - b[2]) * t));
+		}
+
+		float denominator = 1f / (va + vb + vc);
+		float v = vb * denominator;
+		float w = vc * denominator;
+		return set(dest,
+				a[0] + (abx * v) + (acx * w),
+				a[1] + (aby * v) + (acy * w),
+				a[2] + (abz * v) + (acz * w));
+
+	}
+
+	private static float pointSegmentDistanceSquared(float[] point, float[] start, float[] end){
+
+		float sx = end[0] - start[0];
+		float sy = end[1] - start[1];
+		float sz = end[2] - start[2];
+		float length = (sx * sx) + (sy * sy) + (sz * sz);
+		float dx = point[0] - start[0];
+		float dy = point[1] - start[1];
+		float dz = point[2] - start[2];
+		float t = length == 0 ? 0 : clamp(((dx * sx) + (dy * sy) + (dz * sz)) / length);
+		dx -= sx * t;
+		dy -= sy * t;
+		dz -= sz * t;
+		return (dx * dx) + (dy * dy) + (dz * dz);
+
+	}
+
+
+	/**
+	 * The squared distance between the closest points of two segments p1 --> q1 and p2 --> q2
+	 * (Ericson, Real-Time Collision Detection 5.1.9).
+	 */
+	private static float segmentSegmentDistanceSquared(float[] p1, float[] q1, float[] p2, float[] q2){
+
+		float d1x = q1[0] - p1[0];
+		float d1y = q1[1] - p1[1];
+		float d1z = q1[2] - p1[2];
+		float d2x = q2[0] - p2[0];
+		float d2y = q2[1] - p2[1];
+		float d2z = q2[2] - p2[2];
+		float rx = p1[0] - p2[0];
+		float ry = p1[1] - p2[1];
+		float rz = p1[2] - p2[2];
+		float a = (d1x * d1x) + (d1y * d1y) + (d1z * d1z);
+		float e = (d2x * d2x) + (d2y * d2y) + (d2z * d2z);
+		float f = (d2x * rx) + (d2y * ry) + (d2z * rz);
+		float s;
+		float t;
+
+		if(a == 0 && e == 0){
+			return distanceSquared(p1, p2);
+		}
+		if(a == 0){
+			s = 0;
+			t = clamp(f / e);
+		} else {
+			float c = (d1x * rx) + (d1y * ry) + (d1z * rz);
+			if(e == 0){
+				t = 0;
+				s = clamp(-c / a);
+			} else {
+				float b = (d1x * d2x) + (d1y * d2y) + (d1z * d2z);
+				float denominator = (a * e) - (b * b);
+				// Parallel segments have no single closest pair, any s will do
+				s = denominator != 0 ? clamp(((b * f) - (c * e)) / denominator) : 0;
+				t = ((b * s) + f) / e;
+				if(t < 0){
+					t = 0;
+					s = clamp(-c / a);
+				} else if(t > 1){
+					t = 1;
+					s = clamp((b - c) / a);
+				}
+			}
+		}
+		float dx = rx + (d1x * s) - (d2x * t);
+		float dy = ry + (d1y * s) - (d2y * t);
+		float dz = rz + (d1z * s) - (d2z * t);
+		return (dx * dx) + (dy * dy) + (dz * dz);
+
+	}
+
+
+	private static float clamp(float value){
+		return Math.max(0, Math.min(1, value));
+	}
+
+	private static float[] vertex(float[] vertices, int index, float[] dest){
+		return set(dest, vertices[3 * index], vertices[(3 * index) + 1], vertices[(3 * index) + 2]);
+	}
+
+	private static float[] set(float[] dest, float x, float y, float z){
+		dest[0] = x;
+		dest[1] = y;
+		dest[2] = z;
+		return dest;
+	}
+
+	private static float[] sub(float[] a, float[] b, float[] dest){
+		return set(dest, a[0] - b[0], a[1] - b[1], a[2] - b[2]);
+	}
+
+	private static float dot(float[] a, float[] b){
+		return (a[0] * b[0]) + (a[1] * b[1]) + (a[2] * b[2]);
+	}
+
+	private static float[] cross(float[] a, float[] b, float[] dest){
+		return set(dest, (a[1] * b[2]) - (a[2] * b[1]), (a[2] * b[0]) - (a[0] * b[2]), (a[0] * b[1]) - (a[1] * b[0]));
+	}
+
+	private static float distanceSquared(float[] a, float[] b){
+		float dx = a[0] - b[0];
+		float dy = a[1] - b[1];
+		float dz = a[2] - b[2];
+		return (dx * dx) + (dy * dy) + (dz * dz);
+	}
+
+
+	/**
+	 * Places an entity's primitive in a frame centred on the given WorldSpace origin, writing it into dest.
+	 */
+	private static Shape shape(Entity e, double[] origin, Scratch s, Shape dest){
+
+		Primitive primitive = e.getPrimitive();
+		float[] m = s.transformation;
+		Maths.loadTransformation(e, origin, m, 0);
+		float scale = (float) Math.sqrt((m[0] * m[0]) + (m[1] * m[1]) + (m[2] * m[2]));
+
+		dest.type = primitive.getType();
+		set(dest.centre,
+				(m[0] * primitive.getOffsetX()) + (m[4] * primitive.getOffsetY()) + (m[8] * primitive.getOffsetZ()) + m[12],
+				(m[1] * primitive.getOffsetX()) + (m[5] * primitive.getOffsetY()) + (m[9] * primitive.getOffsetZ()) + m[13],
+				(m[2] * primitive.getOffsetX()) + (m[6] * primitive.getOffsetY()) + (m[10] * primitive.getOffsetZ()) + m[14]);
+		for(int i = 0; i < 3; i++){
+			set(dest.axes[i], m[4 * i] / scale, m[(4 * i) + 1] / scale, m[(4 * i) + 2] / scale);
+		}
+		dest.radius = primitive.getRadius() * scale;
+		dest.halfHeight = primitive.getHalfHeight() * scale;
+		float[] extents = primitive.getHalfExtents();
+		set(dest.extents, extents[0] * scale, extents[1] * scale, extents[2] * scale);
+		dest.findEnds();
+		return dest;
+
+	}
+
+
+	/**
+	 * A primitive placed in some space: a centre, three unit axes and its sizes along them.
+	 *
+	 * @author CAISBlogss
+	 *
+	 */
+	private static class Shape{
+
+		Primitive.Type type;
+		final float[] centre = new float[3];
+		final float[][] axes = new float[3][3];
+		float radius;
+		float halfHeight;
+		final float[] extents = new float[3];
+		/** The ends of a capsule's line */
+		final float[] start = new float[3];
+		final float[] end = new float[3];
+
+		/**
+		 * Works out the ends of a capsule's line from its centre, axes and half height
+		 */
+		protected void findEnds(){
+			for(int i = 0; i < 3; i++){
+				start[i] = centre[i] - (axes[1][i] * halfHeight);
+				end[i] = centre[i] + (axes[1][i] * halfHeight);
+			}
+		}
+
+		/**
+		 * A point given in the same space as this shape, re-expressed along this shape's axes relative to its centre and
+		 * written into dest
+		 */
+		protected float[] toLocal(float[] point, float[] dest){
+			float dx = point[0] - centre[0];
+			float dy = point[1] - centre[1];
+			float dz = point[2] - centre[2];
+			return set(dest,
+					(dx * axes[0][0]) + (dy * axes[0][1]) + (dz * axes[0][2]),
+					(dx * axes[1][0]) + (dy * axes[1][1]) + (dz * axes[1][2]),
+					(dx * axes[2][0]) + (dy * axes[2][1]) + (dz * axes[2][2]));
+		}
+
+		/**
+		 * How far the shape reaches from its centre along the given axis of the space it is in
+		 */
+		protected float reach(int i){
+			return (Math.abs(axes[0][i]) * extents[0]) + (Math.abs(axes[1][i]) * extents[1]) + (Math.abs(axes[2][i]) * extents[2]);
+		}
+
+		/**
+		 * Moves this WorldSpace shape into the model space of an entity with the given transformation, writing it into
+		 * local. The transformation is 16 floats ordered as by {@link Maths#composeTransformation}, a rotation and uniform
+		 * scale, so its inverse is its transpose divided by the scale squared.
+		 */
+		protected Shape toModelSpace(float[] m, Shape local){
+
+			float scaleSquared = (m[0] * m[0]) + (m[1] * m[1]) + (m[2] * m[2]);
+			float inverseScale = 1f / (float) Math.sqrt(scaleSquared);
+			float dx = centre[0] - m[12];
+			float dy = centre[1] - m[13];
+			float dz = centre[2] - m[14];
+
+			local.type = type;
+			for(int i = 0; i < 3; i++){
+				int column = 4 * i;
+				local.centre[i] = ((m[column] * dx) + (m[column + 1] * dy) + (m[column + 2] * dz)) / scaleSquared;
+				for(int j = 0; j < 3; j++){
+					float[] axis = axes[j];
+					local.axes[j][i] = ((m[column] * axis[0]) + (m[column + 1] * axis[1]) + (m[column + 2] * axis[2])) * inverseScale;
+				}
+			}
+			local.radius = radius * inverseScale;
+			local.halfHeight = halfHeight * inverseScale;
+			set(local.extents, extents[0] * inverseScale, extents[1] * inverseScale, extents[2] * inverseScale);
+			local.findEnds();
+			return local;
+
+		}
+	}
+
+
+	/**
+	 * The working values of the tests on one thread.
+	 *
+	 * @author CAISBlogss
+	 *
+	 */
+	private static class Scratch{
+
+		final float[] transformation = new float[16];
+		final Shape first = new Shape();
+		final Shape second = new Shape();
+		final float[] a = new float[3];
+		final float[] b = new float[3];
+		final float[] c = new float[3];
+		final float[] p = new float[3];
+		final float[] q = new float[3];
+		final float[] closest = new float[3];
+		final float[] axis = new float[3];
+		final float[][] triangle = new float[3][3];
+		final float[][] edges = new float[3][3];
+		final float[][] corners = new float[8][3];
+		final float[][] rotation = new float[3][3];
+		final float[][] absRotation = new float[3][3];
+
+	}
+
+}
@@ -0,0 +1,58 @@
+package com.tut.tutorial;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PrimitiveDetectorTest {
+
+	private static Entity cube(float x, float rotY, float scale){
+		return TestShapes.cube(x, 0, 0, 0, rotY, 0, scale);
+	}
+
+	private static Entity withPrimitive(float x, Primitive primitive){
+		Entity e = cube(x, 0, 1);
+		e.setPrimitive(primitive);
+		return e;
+	}
+
+
+	@Test
+	public void sphereInsideMeshCollides() {
+
+		Entity sphere = withPrimitive(1, Primitive.sphere(1));
+		assertTrue(PrimitiveDetector.doesCollide(sphere, cube(0, 0, 10)));
+		assertTrue(PrimitiveDetector.doesCollide(cube(0, 0, 10), sphere));
+
+	}
+
+	@Test
+	public void sphereInsideRotatedMeshCollides() {
+
+		assertTrue(PrimitiveDetector.doesCollide(withPrimitive(1, Primitive.sphere(1)), cube(0, 45, 10)));
+		// Out towards a vertical edge of the rotated cube, beyond where its faces would be unrotated
+		assertTrue(PrimitiveDetector.doesCollide(withPrimitive(12, Primitive.sphere(1)), cube(0, 45, 10)));
+
+	}
+
+	@Test
+	public void capsuleAndBoxInsideMeshCollide() {
+
+		assertTrue(PrimitiveDetector.doesCollide(withPrimitive(2, Primitive.capsule(1, 2)), cube(0, 45, 10)));
+		assertTrue(PrimitiveDetector.doesCollide(withPrimitive(2, Primitive.box(1, 2, 1)), cube(0, 45, 10)));
+
+	}
+
+	@Test
+	public void sphereOutsideMeshDoesNotCollide() {
+
+		// Within the rotated cube's WorldSpace bounds but beyond its faces
+		Entity sphere = TestShapes.cube(11, 0, 11);
+		sphere.setPrimitive(Primitive.sphere(0.5f));
+		assertFalse(PrimitiveDetector.doesCollide(sphere, cube(0, 45, 10)));
+		assertFalse(PrimitiveDetector.doesCollide(withPrimitive(20, Primitive.sphere(0.5f)), cube(0, 0, 10)));
+
+	}
+
+}
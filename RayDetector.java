@@ -0,0 +1,178 @@
+package com.tut.tutorial;
+
+import com.tut.prerequesits.Vector3f;
+
+/**
+ *
+ * Finds where a ray first meets the mesh of an entity. The ray is moved into the model space of
+ * the entity rather than moving every vertex into WorldSpace, and is checked against the model's
+ * bounding box before any triangle is visited. Each triangle is tested with the Moller-Trumbore
+ * algorithm, which solves for the distance along the ray and the point's position in the triangle in one step.
+ *
+ * In large world mode the ray is moved into model space from a frame centred on its own start, see
+ * {@link Maths#setLargeWorld(boolean)}, so rays cast far from the centre of the world stay precise.
+ *
+ * @author CAISBlogss
+ *
+ */
+public class RayDetector {
+	
+	// The transformation of the entity being cast at, one per thread so rays can be cast in parallel
+	private static final ThreadLocal<float[]> TRANSFORMATION = ThreadLocal.withInitial(() -> new float[16]);
+
+
+	/**
+	 * Casts a ray at an entity.
+	 *
+	 * @param e
+	 * 				- The entity to cast at.
+	 * @param origin
+	 * 				- The WorldSpace start of the ray.
+	 * @param direction
+	 * 				- The WorldSpace direction of the ray, need not be normalised.
+	 * @param maxDistance
+	 * 				- The furthest along the ray a hit counts, in WorldSpace units.
+	 *
+	 * @return
+	 * 				- The WorldSpace distance from the origin to the first hit, or -1 if the ray misses.
+	 */
+	public static float cast(Entity e, Vector3f origin, Vector3f direction, float maxDistance){
+
+		return cast(e, new double[]{origin.x, origin.y, origin.z}, direction, maxDistance);
+
+	}
+
+
+	/**
+	 * Casts a ray from a start held at double precision, for rays far from the centre of the world.
+	 *
+	 * @param e
+	 * 				- The entity to cast at.
+	 * @param origin
+	 * 				- The WorldSpace start of the ray, stored {x, y, z}
+	 * @param direction
+	 * 				- The WorldSpace direction of the ray, need not be normalised.
+	 * @param maxDistance
+	 * 				- The furthest along the ray a hit counts, in WorldSpace units.
+	 *
+	 * @return
+	 * 				- The WorldSpace distance from the origin to the first hit, or -1 if the ray misses.
+	 */
+	public static float cast(Entity e, double[] origin, Vector3f direction, float maxDistance){
+
+		float length = direction.length();
+		if(length == 0){
+			return -1;
+		}
+
+		// The transformation is a rotation and uniform scale, so its inverse is its transpose divided by the scale squared
+		// Either frame puts the start of the ray at origin - frame, which is (0, 0, 0) in large world mode
+		double[] frame = Maths.isLargeWorld() ? origin : Maths.worldOrigin();
+		float[] m = TRANSFORMATION.get();
+		Maths.loadTransformation(e, frame, m, 0);
+		float scaleSquared = (m[0] * m[0]) + (m[1] * m[1]) + (m[2] * m[2]);
+		float ox = (float) (origin[0] - frame[0]) - m[12];
+		float oy = (float) (origin[1] - frame[1]) - m[13];
+		float oz = (float) (origin[2] - frame[2]) - m[14];
+		float[] o = new float[]{
+				((m[0] * ox) + (m[1] * oy) + (m[2] * oz)) / scaleSquared,
+				((m[4] * ox) + (m[5] * oy) + (m[6] * oz)) / scaleSquared,
+				((m[8] * ox) + (m[9] * oy) + (m[10] * oz)) / scaleSquared};
+		float[] d = new float[]{
+				((m[0] * direction.x) + (m[1] * direction.y) + (m[2] * direction.z)) / scaleSquared,
+				((m[4] * direction.x) + (m[5] * direction.y) + (m[6] * direction.z)) / scaleSquared,
+				((m[8] * direction.x) + (m[9] * direction.y) + (m[10] * direction.z)) / scaleSquared};
+
+		// An affine transformation keeps the position along the ray, so t is shared by both spaces
+		float maxT = maxDistance / length;
+		if(!crossesBox(e.getLocalBounds(), o, d, maxT)){
+			return -1;
+		}
+
+		float[] vertices = e.getVertices();
+		int[] indices = e.getIndices();
+		float nearest = Float.MAX_VALUE;
+
+		for(int i = 0; i < indices.length/3; i++){
+			float t = intersectTriangle(o, d, vertices, indices[3 * i], indices[(3 * i) + 1], indices[(3 * i) + 2]);
+			if(t >= 0 && t <= maxT && t < nearest){
+				nearest = t;
+			}
+		}
+
+		return nearest == Float.MAX_VALUE ? -1 : nearest * length;
+
+	}
+
+
+	/**
+	 * Slab test: the ray passes through the box if the ranges of t where it is between each pair of faces all overlap.
+	 */
+	private static boolean crossesBox(float[] box, float[] o, float[] d, float maxT){
+
+		float near = 0;
+		float far = maxT;
+		for(int axis = 0; axis < 3; axis++){
+			if(d[axis] == 0){
+				if(o[axis] < box[2 * axis] || o[axis] > box[(2 * axis) + 1]){
+					return false;
+				}
+				continue;
+			}
+			float t0 = (box[2 * axis] - o[axis]) / d[axis];
+			float t1 = (box[(2 * axis) + 1] - o[axis]) / d[axis];
+			near = Math.max(near, Math.min(t0, t1));
+			far = Math.min(far, Math.max(t0, t1));
+			if(near > far){
+				return false;
+			}
+		}
+		return true;
+
+	}
+
+
+	/**
+	 * @return
+	 * 				- How far along the ray the triangle is hit, in multiples of the direction, or -1 if it is missed.
+	 */
+	private static float intersectTriangle(float[] o, float[] d, float[] vertices, int a, int b, int c){
+
+		float e1x = vertices[3 * b] - vertices[3 * a];
+		float e1y = vertices[(3 * b) + 1] - vertices[(3 * a) + 1];
+		float e1z = vertices[(3 * b) + 2] - vertices[(3 * a) + 2];
+		float e2x = vertices[3 * c] - vertices[3 * a];
+		float e2y = vertices[(3 * c) + 1] - vertices[(3 * a) + 1];
+		float e2z = vertices[(3 * c) + 2] - vertices[(3 * a) + 2];
+
+		float px = (d[1] * e2z) - (d[2] * e2y);
+		float py = (d[2] * e2x) - (d[0] * e2z);
+		float pz = (d[0] * e2y) - (d[1] * e2x);
+		float determinant = (e1x * px) + (e1y * py) + (e1z * pz);
+		// The ray runs along the triangle's plane
+		if(Math.abs(determinant) < 1e-12f){
+			return -1;
+		}
+		float inverse = 1f / determinant;
+
+		float tx = o[0] - vertices[3 * a];
+		float ty = o[1] - vertices[(3 * a) + 1];
+		float tz = o[2] - vertices[(3 * a) + 2];
+		float u = ((tx * px) + (ty * py) + (tz * pz)) * inverse;
+		if(u < 0 || u > 1){
+			return -1;
+		}
+
+		float qx = (ty * e1z) - (tz * e1y);
+		float qy = (tz * e1x) - (tx * e1z);
+		float qz = (tx * e1y) - (ty * e1x);
+		float v = ((d[0] * qx) + (d[1] * qy) + (d[2] * qz)) * inverse;
+		if(v < 0 || u + v > 1){
+			return -1;
+		}
+
+		return ((e2x * qx) + (e2y * qy) + (e2z * qz)) * inverse;
+
+	}
+
+}
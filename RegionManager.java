@@ -0,0 +1,397 @@
+package com.tut.tutorial;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ *
+ * Keeps only the static geometry near dynamic entities in memory, so a world of any size can be
+ * collided against with a bounded amount of memory.
+ *
+ * The world is tiled into cubic chunks. Each tick {@link #update(Collection)} works out which chunks
+ * lie within the load radius of any dynamic entity and asks the {@link ChunkLoader} for those that are
+ * missing, on a single background thread so disk or network reads never stall the tick. Finished chunks
+ * are written into a back buffer by that thread and swapped to the front at the start of the next update,
+ * so the set of resident chunks only ever changes on the thread that runs the detectors. A static entity
+ * belongs to every chunk its bounding box overlaps, however large it is, so a dynamic entity only looks in
+ * the chunks its own bounding box overlaps. Once the
+ * geometry held goes over the memory budget the chunks that have gone longest without being wanted are
+ * dropped. Chunks still wanted this tick are never dropped, so the budget can be exceeded while that many
+ * dynamic entities are spread over that much of the world. Geometry listed in several resident chunks
+ * is counted against the budget once, and only stops counting when the last of those chunks is dropped.
+ *
+ * Apart from the constructor and {@link #close()} every method must be called from the same thread.
+ *
+ * @author CAISBlogss
+ *
+ */
+public class RegionManager {
+
+	/**
+	 * Reads the static geometry of one chunk, for example from a file per chunk written with the help of {@link RegionManager#tile(Collection, float)}.
+	 * A static entity listed in several chunks should be returned as the same object for each of them, so it is only reported once.
+	 */
+	public interface ChunkLoader {
+		List<Entity> load(int x, int y, int z) throws IOException;
+	}
+
+	private float chunkSize;
+	private float loadRadius;
+	private long memoryBudget;
+	private ChunkLoader loader;
+	private ExecutorService io;
+
+	// In access order, so the chunks that have gone longest without being wanted come first
+	private Map<Long, Chunk> resident = new LinkedHashMap<Long, Chunk>(16, 0.75f, true);
+	private Set<Long> pending = new HashSet<Long>();
+	// The number of resident chunks holding each geometry array, so shared arrays are counted once
+	private Map<Object, Integer> held = new HashMap<Object, Integer>();
+	private long residentBytes;
+
+	private final Object handoff = new Object();
+	private List<Chunk> back = new ArrayList<Chunk>();
+	private List<Chunk> front = new ArrayList<Chunk>();
+
+
+	/**
+	 * @param chunkSize
+	 * 				- The length of the side of a chunk in WorldSpace.
+	 * @param loadRadius
+	 * 				- How far beyond the bounding box of a dynamic entity chunks are loaded.
+	 * @param memoryBudget
+	 * 				- The number of bytes of geometry to keep before cold chunks are dropped.
+	 * @param loader
+	 * 				- Reads chunks, always called from the background thread.
+	 */
+	public RegionManager(float chunkSize, float loadRadius, long memoryBudget, ChunkLoader loader){
+
+		this.chunkSize = chunkSize;
+		this.loadRadius = loadRadius;
+		this.memoryBudget = memoryBudget;
+		this.loader = loader;
+		this.io = Executors.newSingleThreadExecutor(task -> {
+			Thread thread = new Thread(task, "region-loader");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+	}
+
+
+	/**
+	 * Groups static entities by the chunks their WorldSpace bounding boxes overlap, so a large entity is listed in
+	 * every chunk it reaches into. This is how the geometry for each chunk is found when the world is built, ready
+	 * to be stored and later read by a {@link ChunkLoader}.
+	 *
+	 * @param statics
+	 * 				- The static entities of the whole world.
+	 * @param chunkSize
+	 * 				- The length of the side of a chunk in WorldSpace.
+	 *
+	 * @return
+	 * 				- The entities of each chunk, keyed by {@link #key(int, int, int)}.
+	 */
+	public static Map<Long, List<Entity>> tile(Collection<Entity> statics, float chunkSize){
+
+		Map<Long, List<Entity>> tiles = new HashMap<Long, List<Entity>>();
+		for(Entity e : statics){
+			int[] cells = cellsOverlapped(e, chunkSize);
+			for(int x = cells[0]; x <= cells[1]; x++){
+				for(int y = cells[2]; y <= cells[3]; y++){
+					for(int z = cells[4]; z <= cells[5]; z++){
+						long key = key(x, y, z);
+						List<Entity> tile = tiles.get(key);
+						if(tile == null){
+							tile = new ArrayList<Entity>();
+							tiles.put(key, tile);
+						}
+						tile.add(e);
+					}
+				}
+			}
+		}
+		return tiles;
+
+	}
+
+
+	/**
+	 * Packs the coordinates of a chunk into one number, 21 bits per axis.
+	 *
+	 * @throws IllegalArgumentException
+	 * 				- If a coordinate is outside -2^20 to 2^20 - 1, where it would share a key with another chunk.
+	 */
+	public static long key(int x, int y, int z){
+
+		if(!fitsKey(x) || !fitsKey(y) || !fitsKey(z)){
+			throw new IllegalArgumentException("Chunk " + x + ", " + y + ", " + z + " is too far from the origin to be keyed");
+		}
+		return ((x & 0x1FFFFFL) << 42) | ((y & 0x1FFFFFL) << 21) | (z & 0x1FFFFFL);
+
+	}
+
+	private static boolean fitsKey(int coordinate){
+		return coordinate >= -(1 << 20) && coordinate < (1 << 20);
+	}
+
+
+	/**
+	 * Brings the resident chunks up to date with where the dynamic entities are. Should be called once per tick before any detection.
+	 *
+	 * @param dynamics
+	 * 				- The entities that chunks are loaded around.
+	 */
+	public void update(Collection<Entity> dynamics){
+
+		acceptLoadedChunks();
+
+		int reach = (int) Math.ceil(loadRadius / chunkSize);
+		Set<Long> wanted = new HashSet<Long>();
+		for(Entity e : dynamics){
+			int[] cells = cellsOverlapped(e, chunkSize);
+			for(int x = cells[0] - reach; x <= cells[1] + reach; x++){
+				for(int y = cells[2] - reach; y <= cells[3] + reach; y++){
+					for(int z = cells[4] - reach; z <= cells[5] + reach; z++){
+						wanted.add(key(x, y, z));
+						request(x, y, z);
+					}
+				}
+			}
+		}
+
+		// Reading a chunk moves it to the end of the access order
+		for(long key : wanted){
+			resident.get(key);
+		}
+
+		evict(wanted);
+
+	}
+
+
+	/**
+	 * @return
+	 * 				- Every static entity currently in memory, each listed once.
+	 */
+	public List<Entity> getResidentEntities(){
+
+		Set<Entity> entities = new LinkedHashSet<Entity>();
+		for(Chunk chunk : resident.values()){
+			entities.addAll(chunk.entities);
+		}
+		return new ArrayList<Entity>(entities);
+
+	}
+
+
+	/**
+	 * Runs a detector between an entity and the resident static geometry in the chunks its bounding box overlaps.
+	 *
+	 * @param e
+	 * 				- The entity to test, normally a dynamic one.
+	 * @param test
+	 * 				- The detector to run, for example {@link CollisionDetector#hyperplaneCollide(Entity, Entity)}.
+	 *
+	 * @return
+	 * 				- The resident entities the entity collides with, each listed once.
+	 */
+	public List<Entity> findCollisions(Entity e, IslandScheduler.PairTest test){
+
+		List<Entity> hits = new ArrayList<Entity>();
+		// Static entities are listed in every chunk they overlap, so two that touch share at least one chunk
+		int[] cells = cellsOverlapped(e, chunkSize);
+		Set<Entity> tested = new HashSet<Entity>();
+		for(int x = cells[0]; x <= cells[1]; x++){
+			for(int y = cells[2]; y <= cells[3]; y++){
+				for(int z = cells[4]; z <= cells[5]; z++){
+					Chunk chunk = resident.get(key(x, y, z));
+					if(chunk == null){
+						continue;
+					}
+					for(Entity other : chunk.entities){
+						if(tested.add(other) && CollisionFilter.canCollide(e, other) && test.doesCollide(e, other)){
+							hits.add(other);
+						}
+					}
+				}
+			}
+		}
+		return hits;
+
+	}
+
+
+	/**
+	 * @return
+	 * 				- The estimated number of bytes of geometry currently in memory.
+	 */
+	public long getResidentBytes(){
+		return residentBytes;
+	}
+
+
+	/**
+	 * Stops the background thread. Loads already started are abandoned.
+	 */
+	public void close(){
+		io.shutdownNow();
+	}
+
+
+	private void request(final int x, final int y, final int z){
+
+		final long key = key(x, y, z);
+		if(resident.containsKey(key) || pending.contains(key)){
+			return;
+		}
+		pending.add(key);
+		io.execute(() -> {
+			Chunk chunk = new Chunk(key);
+			try {
+				List<Entity> entities = loader.load(x, y, z);
+				if(entities != null){
+					chunk.entities = entities;
+				}
+			} catch (IOException | RuntimeException e) {
+				chunk.failed = true;
+			} finally {
+				// Always handed back, failed or not, so the chunk stops being pending and can be asked for again
+				synchronized(handoff){
+					back.add(chunk);
+				}
+			}
+		});
+
+	}
+
+
+	/**
+	 * Swaps the buffer the loader thread has been filling with the empty one, then moves its chunks into the resident set.
+	 */
+	private void acceptLoadedChunks(){
+
+		synchronized(handoff){
+			List<Chunk> filled = back;
+			back = front;
+			front = filled;
+		}
+
+		for(Chunk chunk : front){
+			pending.remove(chunk.key);
+			// A failed read is left out, so it is tried again the next time the chunk is wanted
+			if(chunk.failed){
+				continue;
+			}
+			resident.put(chunk.key, chunk);
+			for(Map.Entry<Object, Long> geometry : geometryOf(chunk.entities).entrySet()){
+				Integer holders = held.get(geometry.getKey());
+				if(holders == null){
+					held.put(geometry.getKey(), 1);
+					residentBytes += geometry.getValue();
+				} else {
+					held.put(geometry.getKey(), holders + 1);
+				}
+			}
+		}
+		front.clear();
+
+	}
+
+
+	/**
+	 * Drops the coldest chunks that are not wanted this tick until the budget is met. The resident chunks are
+	 * in access order, so this is one walk from the coldest end that stops as soon as the budget is met.
+	 */
+	private void evict(Set<Long> wanted){
+
+		Iterator<Chunk> coldestFirst = resident.values().iterator();
+		while(residentBytes > memoryBudget && coldestFirst.hasNext()){
+			Chunk chunk = coldestFirst.next();
+			if(wanted.contains(chunk.key)){
+				continue;
+			}
+			coldestFirst.remove();
+			for(Map.Entry<Object, Long> geometry : geometryOf(chunk.entities).entrySet()){
+				int holders = held.get(geometry.getKey()) - 1;
+				if(holders == 0){
+					held.remove(geometry.getKey());
+					residentBytes -= geometry.getValue();
+				} else {
+					held.put(geometry.getKey(), holders);
+				}
+			}
+		}
+
+	}
+
+
+	/**
+	 * The geometry arrays of the entities, each listed once with the bytes it holds. Models shared between
+	 * entities are the same arrays, so they are only listed once.
+	 */
+	private static Map<Object, Long> geometryOf(List<Entity> entities){
+
+		Map<Object, Long> geometry = new HashMap<Object, Long>();
+		for(Entity e : entities){
+			geometry.put(e.getVertices(), 4L * e.getVertices().length);
+			if(e.getNormals() != null){
+				geometry.put(e.getNormals(), 4L * e.getNormals().length);
+			}
+			if(e.getIndices() != null){
+				geometry.put(e.getIndices(), 4L * e.getIndices().length);
+			}
+		}
+		return geometry;
+
+	}
+
+	private static int cell(double position, float chunkSize){
+		return (int) Math.floor(position / chunkSize);
+	}
+
+	/**
+	 * The range of chunks the entity's WorldSpace bounding box overlaps, stored {minX, maxX, minY, maxY, minZ, maxZ}.
+	 */
+	private static int[] cellsOverlapped(Entity e, float chunkSize){
+
+		double[] origin = e.getRegionOrigin();
+		float[] box = BoundingBoxDetector.findAxisAlignedBoundingBox(e, origin);
+		int[] cells = new int[6];
+		for(int i = 0; i < 3; i++){
+			cells[2 * i] = cell(origin[i] + box[2 * i], chunkSize);
+			cells[(2 * i) + 1] = cell(origin[i] + box[(2 * i) + 1], chunkSize);
+		}
+		return cells;
+
+	}
+
+
+	/**
+	 * The static geometry of one chunk.
+	 *
+	 * @author CAISBlogss
+	 *
+	 */
+	private static class Chunk{
+
+		long key;
+		List<Entity> entities = new ArrayList<Entity>();
+		boolean failed;
+
+		protected Chunk(long key){
+			this.key = key;
+		}
+	}
+
+}
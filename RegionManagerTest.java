@@ -0,0 +1,174 @@
+package com.tut.tutorial;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.tut.prerequesits.Vector3f;
+
+public class RegionManagerTest {
+
+	private static Entity cube(float x, float scale){
+		return TestShapes.cube(x, 0, 0, scale);
+	}
+
+	/**
+	 * A static cube with geometry arrays of its own, so it is counted separately from every other cube.
+	 */
+	private static Entity staticCubeOfItsOwn(float x){
+		Entity e = new Entity(new Vector3f(x, 0, 0), 0, 0, 0, 1, TestShapes.CUBE.clone(), TestShapes.CUBE_NORMALS.clone(), TestShapes.CUBE_INDICES.clone());
+		e.setBodyType(Entity.BodyType.STATIC);
+		return e;
+	}
+
+	private static long bytesOf(Entity e){
+		return 4L * (e.getVertices().length + e.getNormals().length + e.getIndices().length);
+	}
+
+	/**
+	 * Updates until the detector finds something or a second has passed, as chunks load in the background.
+	 */
+	private static List<Entity> collideOnceLoaded(RegionManager regions, Entity dynamic) throws InterruptedException {
+
+		List<Entity> hits = Collections.emptyList();
+		for(int wait = 0; wait < 100 && hits.isEmpty(); wait++){
+			regions.update(Collections.singletonList(dynamic));
+			hits = regions.findCollisions(dynamic, HyperPlaneDetector::doesCollide);
+			Thread.sleep(10);
+		}
+		return hits;
+
+	}
+
+
+	@Test
+	public void largeStaticIsFoundFarFromItsPosition() throws Exception {
+
+		Entity ground = cube(0, 50);
+		ground.setBodyType(Entity.BodyType.STATIC);
+		List<Entity> statics = new ArrayList<Entity>();
+		statics.add(ground);
+		Map<Long, List<Entity>> tiles = RegionManager.tile(statics, 10);
+
+		RegionManager regions = new RegionManager(10, 0, Long.MAX_VALUE, (x, y, z) -> tiles.get(RegionManager.key(x, y, z)));
+		try {
+			// Three chunks away from the chunk holding the static's position, but well inside it
+			List<Entity> hits = collideOnceLoaded(regions, cube(35, 1));
+			assertEquals(1, hits.size());
+			assertTrue(hits.get(0) == ground);
+			assertEquals(1, regions.getResidentEntities().size());
+		} finally {
+			regions.close();
+		}
+
+	}
+
+	@Test
+	public void chunkIsRetriedAfterLoaderThrows() throws Exception {
+
+		Entity wall = cube(0, 1);
+		wall.setBodyType(Entity.BodyType.STATIC);
+		AtomicInteger attempts = new AtomicInteger();
+
+		RegionManager regions = new RegionManager(10, 0, Long.MAX_VALUE, (x, y, z) -> {
+			if(x != 0 || y != 0 || z != 0){
+				return null;
+			}
+			if(attempts.incrementAndGet() == 1){
+				throw new IllegalStateException("Corrupt chunk");
+			}
+			return Collections.singletonList(wall);
+		});
+		try {
+			List<Entity> hits = collideOnceLoaded(regions, cube(1, 1));
+			assertEquals(1, hits.size());
+			assertEquals(2, attempts.get());
+		} finally {
+			regions.close();
+		}
+
+	}
+
+	@Test
+	public void staticInManyChunksIsCountedOnce() throws Exception {
+
+		Entity ground = cube(0, 50);
+		ground.setBodyType(Entity.BodyType.STATIC);
+		Map<Long, List<Entity>> tiles = RegionManager.tile(Collections.singletonList(ground), 10);
+		AtomicInteger loads = new AtomicInteger();
+
+		// The dynamic's box overlaps two chunks along each axis, and two more are loaded on each side
+		RegionManager regions = new RegionManager(10, 20, Long.MAX_VALUE, (x, y, z) -> {
+			loads.incrementAndGet();
+			return tiles.get(RegionManager.key(x, y, z));
+		});
+		try {
+			Entity dynamic = cube(0, 1);
+			for(int wait = 0; wait < 100 && loads.get() < 216; wait++){
+				regions.update(Collections.singletonList(dynamic));
+				assertTrue(regions.getResidentBytes() == 0 || regions.getResidentBytes() == bytesOf(ground));
+				Thread.sleep(10);
+			}
+			Thread.sleep(50);
+			regions.update(Collections.singletonList(dynamic));
+			assertEquals(216, loads.get());
+			assertEquals(bytesOf(ground), regions.getResidentBytes());
+		} finally {
+			regions.close();
+		}
+
+	}
+
+	@Test
+	public void leastRecentlyWantedChunkIsDropped() throws Exception {
+
+		Entity first = staticCubeOfItsOwn(5);
+		Entity second = staticCubeOfItsOwn(25);
+		Entity third = staticCubeOfItsOwn(45);
+		List<Entity> statics = new ArrayList<Entity>();
+		statics.add(first);
+		statics.add(second);
+		statics.add(third);
+		Map<Long, List<Entity>> tiles = RegionManager.tile(statics, 10);
+
+		// Room for two of the cubes
+		RegionManager regions = new RegionManager(10, 0, 2 * bytesOf(first), (x, y, z) -> tiles.get(RegionManager.key(x, y, z)));
+		try {
+			assertEquals(1, collideOnceLoaded(regions, cube(5, 1)).size());
+			assertEquals(1, collideOnceLoaded(regions, cube(25, 1)).size());
+			// Wanting the first again makes the second the coldest
+			regions.update(Collections.singletonList(cube(5, 1)));
+			assertEquals(1, collideOnceLoaded(regions, cube(45, 1)).size());
+
+			List<Entity> resident = regions.getResidentEntities();
+			assertEquals(2, resident.size());
+			assertTrue(resident.contains(first));
+			assertTrue(resident.contains(third));
+			assertEquals(2 * bytesOf(first), regions.getResidentBytes());
+		} finally {
+			regions.close();
+		}
+
+	}
+
+	@Test
+	public void chunksTooFarOutToKeyAreRejected() {
+
+		RegionManager.key((1 << 20) - 1, -(1 << 20), 0);
+		try {
+			RegionManager.key(1 << 20, 0, 0);
+			fail("Chunk 2^20 shares a key with chunk -2^20");
+		} catch (IllegalArgumentException expected) {
+		}
+
+	}
+
+}
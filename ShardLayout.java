@@ -0,0 +1,103 @@
+package com.tut.tutorial;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ *
+ * Divides the world into square regions on the x-z plane, each owned by one shard of a {@link ShardedWorld}.
+ * Shards are numbered x first: shard {@code cx + (shardsX * cz)} owns region column cx, row cz. Regions run
+ * from 0 in steps of the region size, and the outermost regions stretch on to infinity, so every position
+ * has exactly one owner. Shards are columns reaching the full height of the world.
+ *
+ * Every process of a world must use the same layout.
+ *
+ * @author CAISBlogss
+ *
+ */
+public class ShardLayout {
+
+	private int shardsX;
+	private int shardsZ;
+	private double regionSize;
+	private double ghostMargin;
+
+
+	/**
+	 * @param shardsX
+	 * 				- The number of regions along x.
+	 * @param shardsZ
+	 * 				- The number of regions along z.
+	 * @param regionSize
+	 * 				- The width of each region in WorldSpace units.
+	 * @param ghostMargin
+	 * 				- How close to a region an entity's position must come for a copy to be sent to that region's shard. Must be at least
+	 * 				  twice the largest distance from any entity's position to its furthest point, or pairs across a border can be missed.
+	 */
+	public ShardLayout(int shardsX, int shardsZ, double regionSize, double ghostMargin){
+
+		if(shardsX < 1 || shardsZ < 1 || regionSize <= 0 || ghostMargin < 0){
+			throw new IllegalArgumentException("Invalid shard layout " + shardsX + "x" + shardsZ + " of " + regionSize + " with margin " + ghostMargin);
+		}
+		this.shardsX = shardsX;
+		this.shardsZ = shardsZ;
+		this.regionSize = regionSize;
+		this.ghostMargin = ghostMargin;
+
+	}
+
+
+	/**
+	 * @param worldPosition
+	 * 				- A WorldSpace position stored {x, y, z}, see {@link Entity#getWorldPosition()}.
+	 *
+	 * @return
+	 * 				- The shard owning the region the position is in.
+	 */
+	public int ownerOf(double[] worldPosition){
+		return column(worldPosition[0], shardsX) + (shardsX * column(worldPosition[2], shardsZ));
+	}
+
+
+	/**
+	 * @param worldPosition
+	 * 				- A WorldSpace position stored {x, y, z}.
+	 *
+	 * @return
+	 * 				- Every shard whose region is within the ghost margin of the position, including its owner, in order.
+	 */
+	public Set<Integer> shardsNear(double[] worldPosition){
+
+		int x0 = column(worldPosition[0] - ghostMargin, shardsX);
+		int x1 = column(worldPosition[0] + ghostMargin, shardsX);
+		int z0 = column(worldPosition[2] - ghostMargin, shardsZ);
+		int z1 = column(worldPosition[2] + ghostMargin, shardsZ);
+
+		Set<Integer> shards = new TreeSet<Integer>();
+		for(int cz = z0; cz <= z1; cz++){
+			for(int cx = x0; cx <= x1; cx++){
+				shards.add(cx + (shardsX * cz));
+			}
+		}
+		return shards;
+
+	}
+
+
+	private int column(double coordinate, int count){
+		return (int) Math.max(0, Math.min(count - 1, Math.floor(coordinate / regionSize)));
+	}
+
+	public int getShardCount() {
+		return shardsX * shardsZ;
+	}
+
+	public double getRegionSize() {
+		return regionSize;
+	}
+
+	public double getGhostMargin() {
+		return ghostMargin;
+	}
+
+}
@@ -0,0 +1,33 @@
+package com.tut.tutorial;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ *
+ * Carries the per tick messages between the shards of a {@link ShardedWorld}. Each shard calls
+ * {@link #exchange(int, byte[][])} once per tick; the call returns once that shard has the message every
+ * other shard sent it for the same tick. Messages must arrive whole and each tick's messages must be
+ * delivered before the next tick's, as each message only describes what changed since the last.
+ *
+ * {@link LoopbackShardTransport} connects shards running on threads of one process.
+ *
+ * @author CAISBlogss
+ *
+ */
+public interface ShardTransport extends Closeable {
+
+	/**
+	 * Sends this tick's messages and waits for those addressed to this shard.
+	 *
+	 * @param shard
+	 * 				- The shard calling.
+	 * @param outgoing
+	 * 				- The message for each shard by shard number, the entry for the calling shard is ignored.
+	 *
+	 * @return
+	 * 				- The message from each shard by shard number, the entry for the calling shard is null.
+	 */
+	byte[][] exchange(int shard, byte[][] outgoing) throws IOException;
+
+}
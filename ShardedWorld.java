@@ -0,0 +1,383 @@
+package com.tut.tutorial;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+
+import com.tut.prerequesits.Vector3f;
+
+/**
+ *
+ * One shard of a world split across processes by a {@link ShardLayout}. The shard owns the entities whose
+ * positions are in its region, and each tick it is sent ghost copies of the entities other shards own that
+ * are within the layout's ghost margin of it, over a {@link ShardTransport}.
+ *
+ * Each tick, for every entity it owns, the shard works out which shard now owns it and which shards are near
+ * it. An entity that has left the region is sent to its new owner and dropped, and a ghost is sent to every
+ * other shard nearby. The first time an entity is sent to a shard its geometry goes with it, after that only
+ * its pose does, so messages stay small while the same entities sit near a border.
+ *
+ * Collisions are then found among the owned entities and ghosts with an {@link IslandScheduler}. A pair that
+ * crosses a border is seen by the shards on both sides, so each pair is only tested and reported by the shard
+ * owning the entity with the lower id. The ghost margin guarantees that shard holds the other entity, so across all
+ * shards every colliding pair is reported exactly once.
+ *
+ * Ghosts carry the render mesh, primitive, body type, layer and mask of their entity. Convex hull parts and
+ * collision levels of detail stay with the owner.
+ *
+ * @author CAISBlogss
+ *
+ */
+public class ShardedWorld {
+
+	private static final byte GHOST = 0;
+	private static final byte OWNED = 1;
+	private static final byte GEOMETRY = 2;
+
+	private int shard;
+	private ShardLayout layout;
+	private ShardTransport transport;
+	private IslandScheduler scheduler;
+	private IslandScheduler.PairTest narrowPhase;
+
+	private Map<Long, Entity> owned = new TreeMap<Long, Entity>();
+	private Map<Long, Entity> ghosts = new TreeMap<Long, Entity>();
+	// The ids sent to each shard last tick, which that shard already has the geometry of
+	private List<Set<Long>> sent = new ArrayList<Set<Long>>();
+	// The id of each entity in the scene of the current tick
+	private Map<Entity, Long> sceneIds = new IdentityHashMap<Entity, Long>();
+
+
+	/**
+	 * @param shard
+	 * 				- The number of this shard in the layout.
+	 * @param layout
+	 * 				- The layout shared by every shard of the world.
+	 * @param transport
+	 * 				- Connects this shard to the others.
+	 * @param executor
+	 * 				- The executor islands are run on, see {@link IslandScheduler}.
+	 * @param narrowPhase
+	 * 				- The exact test run on pairs whose bounding boxes overlap.
+	 */
+	public ShardedWorld(int shard, ShardLayout layout, ShardTransport transport, ExecutorService executor, IslandScheduler.PairTest narrowPhase){
+
+		this.shard = shard;
+		this.layout = layout;
+		this.transport = transport;
+		this.narrowPhase = narrowPhase;
+		this.scheduler = new IslandScheduler(executor, this::isResponsibleAndCollides, null);
+		for(int i = 0; i < layout.getShardCount(); i++){
+			sent.add(new HashSet<Long>());
+		}
+
+	}
+
+
+	/**
+	 * Adds an entity to this shard. If it is outside the shard's region it is handed to its owner on the next tick.
+	 *
+	 * @param id
+	 * 				- An id unique across every shard of the world.
+	 * @param e
+	 * 				- The entity.
+	 */
+	public void add(long id, Entity e){
+		owned.put(id, e);
+	}
+
+	/**
+	 * @return
+	 * 				- The entity removed, or null if this shard did not own it.
+	 */
+	public Entity remove(long id){
+		return owned.remove(id);
+	}
+
+
+	/**
+	 * Exchanges entities with the other shards, then finds collisions. Every shard of the world must call this once per tick.
+	 *
+	 * @return
+	 * 				- The colliding pairs this shard is responsible for as {lower id, higher id}, sorted.
+	 */
+	public List<long[]> tick() throws IOException {
+
+		exchange();
+		return findCollisions();
+
+	}
+
+
+	private void exchange() throws IOException {
+
+		int shards = layout.getShardCount();
+		ByteArrayOutputStream[] buffers = new ByteArrayOutputStream[shards];
+		DataOutputStream[] messages = new DataOutputStream[shards];
+		List<Set<Long>> sending = new ArrayList<Set<Long>>();
+		for(int i = 0; i < shards; i++){
+			buffers[i] = new ByteArrayOutputStream();
+			messages[i] = new DataOutputStream(buffers[i]);
+			sending.add(new HashSet<Long>());
+		}
+
+		Map<Long, Entity> kept = new TreeMap<Long, Entity>();
+		Map<Long, Entity> nearby = new TreeMap<Long, Entity>();
+		for(Map.Entry<Long, Entity> entry : owned.entrySet()){
+
+			long id = entry.getKey();
+			Entity e = entry.getValue();
+			double[] position = e.getWorldPosition();
+			int owner = layout.ownerOf(position);
+			Set<Integer> near = layout.shardsNear(position);
+			near.add(owner);
+
+			for(int to : near){
+				if(to == shard){
+					continue;
+				}
+				byte kind = to == owner ? OWNED : GHOST;
+				if(!sent.get(to).contains(id)){
+					kind |= GEOMETRY;
+				}
+				write(messages[to], kind, id, e);
+				sending.get(to).add(id);
+			}
+
+			if(owner == shard){
+				kept.put(id, e);
+			} else if(near.contains(shard)){
+				nearby.put(id, e);
+			}
+		}
+
+		byte[][] outgoing = new byte[shards][];
+		for(int i = 0; i < shards; i++){
+			messages[i].flush();
+			outgoing[i] = buffers[i].toByteArray();
+		}
+		byte[][] incoming = transport.exchange(shard, outgoing);
+
+		for(int from = 0; from < shards; from++){
+			if(from == shard || incoming[from] == null){
+				continue;
+			}
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(incoming[from]));
+			while(in.available() > 0){
+				byte kind = in.readByte();
+				long id = in.readLong();
+				Entity e = read(in, kind, ghosts.get(id));
+				if((kind & OWNED) != 0){
+					kept.put(id, e);
+				} else {
+					nearby.put(id, e);
+				}
+			}
+		}
+
+		owned = kept;
+		ghosts = nearby;
+		sent = sending;
+
+	}
+
+
+	private List<long[]> findCollisions(){
+
+		List<Entity> scene = new ArrayList<Entity>(owned.size() + ghosts.size());
+		Map<Entity, Long> ids = new IdentityHashMap<Entity, Long>();
+		for(Map<Long, Entity> entities : Arrays.asList(owned, ghosts)){
+			for(Map.Entry<Long, Entity> entry : entities.entrySet()){
+				scene.add(entry.getValue());
+				ids.put(entry.getValue(), entry.getKey());
+			}
+		}
+		sceneIds = ids;
+
+		List<long[]> pairs = new ArrayList<long[]>();
+		for(IslandScheduler.Island island : scheduler.tick(scene)){
+			for(Entity[] collision : island.getCollisions()){
+				long a = ids.get(collision[0]);
+				long b = ids.get(collision[1]);
+				pairs.add(new long[]{Math.min(a, b), Math.max(a, b)});
+			}
+		}
+		Collections.sort(pairs, (p, q) -> p[0] != q[0] ? Long.compare(p[0], q[0]) : Long.compare(p[1], q[1]));
+		return pairs;
+
+	}
+
+
+	/**
+	 * The narrow phase, skipped for pairs another shard reports. Runs on the scheduler's threads, which only read the maps.
+	 */
+	private boolean isResponsibleAndCollides(Entity primary, Entity secondary){
+		long lower = Math.min(sceneIds.get(primary), sceneIds.get(secondary));
+		return owned.containsKey(lower) && narrowPhase.doesCollide(primary, secondary);
+	}
+
+
+	/**
+	 * Writes one entity: its kind, id and pose, then its geometry if the kind says so.
+	 */
+	private static void write(DataOutputStream out, byte kind, long id, Entity e) throws IOException {
+
+		out.writeByte(kind);
+		out.writeLong(id);
+		double[] origin = e.getRegionOrigin();
+		out.writeDouble(origin[0]);
+		out.writeDouble(origin[1]);
+		out.writeDouble(origin[2]);
+		out.writeFloat(e.getPosition().x);
+		out.writeFloat(e.getPosition().y);
+		out.writeFloat(e.getPosition().z);
+		out.writeFloat(e.getRotX());
+		out.writeFloat(e.getRotY());
+		out.writeFloat(e.getRotZ());
+		out.writeFloat(e.getScale());
+		out.writeByte(e.getBodyType().ordinal());
+		out.writeInt(e.getLayer());
+		out.writeInt(e.getMask());
+
+		if((kind & GEOMETRY) == 0){
+			return;
+		}
+		writeFloats(out, e.getVertices());
+		writeFloats(out, e.getNormals());
+		out.writeInt(e.getIndices().length);
+		for(int index : e.getIndices()){
+			out.writeInt(index);
+		}
+
+		Primitive primitive = e.getPrimitive();
+		out.writeByte(primitive == null ? -1 : primitive.getType().ordinal());
+		if(primitive != null){
+			out.writeFloat(primitive.getRadius());
+			out.writeFloat(primitive.getHalfHeight());
+			writeFloats(out, primitive.getHalfExtents());
+			out.writeFloat(primitive.getOffsetX());
+			out.writeFloat(primitive.getOffsetY());
+			out.writeFloat(primitive.getOffsetZ());
+		}
+
+	}
+
+
+	/**
+	 * Reads one entity after its kind and id, building it if it carries geometry or else moving the copy already held.
+	 */
+	private static Entity read(DataInputStream in, byte kind, Entity held) throws IOException {
+
+		double[] origin = new double[]{in.readDouble(), in.readDouble(), in.readDouble()};
+		float x = in.readFloat();
+		float y = in.readFloat();
+		float z = in.readFloat();
+		float rotX = in.readFloat();
+		float rotY = in.readFloat();
+		float rotZ = in.readFloat();
+		float scale = in.readFloat();
+		Entity.BodyType bodyType = Entity.BodyType.values()[in.readByte()];
+		int layer = in.readInt();
+		int mask = in.readInt();
+
+		Entity e = held;
+		if((kind & GEOMETRY) != 0){
+			float[] vertices = readFloats(in);
+			float[] normals = readFloats(in);
+			int[] indices = new int[in.readInt()];
+			for(int i = 0; i < indices.length; i++){
+				indices[i] = in.readInt();
+			}
+			e = new Entity(new Vector3f(x, y, z), rotX, rotY, rotZ, scale, vertices, normals, indices);
+			e.setPrimitive(readPrimitive(in));
+		} else if(e == null){
+			throw new IOException("Pose received for an entity whose geometry was never sent");
+		}
+
+		e.getPosition().set(x, y, z);
+		e.setRegionOrigin(origin[0], origin[1], origin[2]);
+		e.setRotX(rotX);
+		e.setRotY(rotY);
+		e.setRotZ(rotZ);
+		e.setScale(scale);
+		e.setBodyType(bodyType);
+		e.setLayer(layer);
+		e.setMask(mask);
+		return e;
+
+	}
+
+	private static Primitive readPrimitive(DataInputStream in) throws IOException {
+
+		byte type = in.readByte();
+		if(type < 0){
+			return null;
+		}
+		float radius = in.readFloat();
+		float halfHeight = in.readFloat();
+		float[] halfExtents = readFloats(in);
+		Primitive primitive;
+		switch(Primitive.Type.values()[type]){
+		case SPHERE:
+			primitive = Primitive.sphere(radius);
+			break;
+		case CAPSULE:
+			primitive = Primitive.capsule(radius, halfHeight);
+			break;
+		default:
+			primitive = Primitive.box(halfExtents[0], halfExtents[1], halfExtents[2]);
+			break;
+		}
+		return primitive.offset(in.readFloat(), in.readFloat(), in.readFloat());
+
+	}
+
+	private static void writeFloats(DataOutputStream out, float[] values) throws IOException {
+		out.writeInt(values.length);
+		for(float value : values){
+			out.writeFloat(value);
+		}
+	}
+
+	private static float[] readFloats(DataInputStream in) throws IOException {
+		float[] values = new float[in.readInt()];
+		for(int i = 0; i < values.length; i++){
+			values[i] = in.readFloat();
+		}
+		return values;
+	}
+
+
+	public int getShard() {
+		return shard;
+	}
+
+	/**
+	 * @return
+	 * 			- The entities this shard owns, by id.
+	 */
+	public Map<Long, Entity> getOwned() {
+		return Collections.unmodifiableMap(owned);
+	}
+
+	/**
+	 * @return
+	 * 			- The copies of other shards' entities near this shard as of the last tick, by id.
+	 */
+	public Map<Long, Entity> getGhosts() {
+		return Collections.unmodifiableMap(ghosts);
+	}
+
+}
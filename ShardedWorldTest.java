@@ -0,0 +1,320 @@
+package com.tut.tutorial;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class ShardedWorldTest {
+
+	/** Two by two regions of 20 units, with room for two unit cubes' furthest points */
+	private static final ShardLayout LAYOUT = new ShardLayout(2, 2, 20, (2 * Math.sqrt(3)) + 0.01);
+
+
+	/**
+	 * Moves the entity with the given id to where it is at the given tick, wandering over every region of the layout.
+	 */
+	private static void pose(Entity e, long id, int tick){
+
+		double phase = id * 0.7;
+		e.getPosition().set(
+				(float) (20 + (18 * Math.sin(phase + (tick * 0.05 * (1 + (id % 3)))))),
+				(float) (2 * Math.sin(id)),
+				(float) (20 + (18 * Math.cos((phase * 1.3) + (tick * 0.04)))));
+		e.setRotX(id * 10);
+		e.setRotY((tick * 3) + id);
+
+	}
+
+	private static ShardedWorld[] createShards(ShardTransport transport, ExecutorService executor){
+
+		ShardedWorld[] shards = new ShardedWorld[LAYOUT.getShardCount()];
+		for(int i = 0; i < shards.length; i++){
+			shards[i] = new ShardedWorld(i, LAYOUT, transport, executor, HyperPlaneDetector::doesCollide);
+		}
+		return shards;
+
+	}
+
+	/**
+	 * Ticks every shard on a thread of its own, as separate processes would.
+	 *
+	 * @return
+	 * 				- Every pair reported by any shard as "lower-higher", repeats included.
+	 */
+	private static List<String> tickAll(ShardedWorld[] shards) throws Exception {
+
+		ExecutorService threads = Executors.newFixedThreadPool(shards.length);
+		try {
+			List<Future<List<long[]>>> ticks = new ArrayList<Future<List<long[]>>>();
+			for(ShardedWorld shard : shards){
+				ticks.add(threads.submit(shard::tick));
+			}
+			List<String> pairs = new ArrayList<String>();
+			for(Future<List<long[]>> tick : ticks){
+				for(long[] pair : tick.get()){
+					pairs.add(pair[0] + "-" + pair[1]);
+				}
+			}
+			return pairs;
+		} finally {
+			threads.shutdown();
+		}
+
+	}
+
+	/**
+	 * The pairs found when the same entities are one world on one machine.
+	 */
+	private static Set<String> singleWorldPairs(List<Entity> world, ExecutorService executor){
+
+		Map<Entity, Integer> ids = new IdentityHashMap<Entity, Integer>();
+		for(int i = 0; i < world.size(); i++){
+			ids.put(world.get(i), i);
+		}
+		Set<String> pairs = new TreeSet<String>();
+		for(IslandScheduler.Island island : new IslandScheduler(executor, HyperPlaneDetector::doesCollide, null).tick(world)){
+			for(Entity[] collision : island.getCollisions()){
+				int a = ids.get(collision[0]);
+				int b = ids.get(collision[1]);
+				pairs.add(Math.min(a, b) + "-" + Math.max(a, b));
+			}
+		}
+		return pairs;
+
+	}
+
+	private static void assertReportedOnce(Set<String> expected, List<String> reported){
+
+		Set<String> distinct = new TreeSet<String>(reported);
+		assertEquals("pairs reported twice", distinct.size(), reported.size());
+		assertEquals(expected, distinct);
+
+	}
+
+	private static int holderOf(ShardedWorld[] shards, long id){
+
+		for(ShardedWorld shard : shards){
+			if(shard.getOwned().containsKey(id)){
+				return shard.getShard();
+			}
+		}
+		return -1;
+
+	}
+
+
+	@Test
+	public void pairAcrossABorderIsReportedOnce() throws Exception {
+
+		LoopbackShardTransport transport = new LoopbackShardTransport(LAYOUT.getShardCount());
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			ShardedWorld[] shards = createShards(transport, executor);
+			// Either side of the border between the first two regions, overlapping by a quarter
+			shards[0].add(0, TestShapes.cube(19, 5, 5));
+			shards[1].add(1, TestShapes.cube(20.75f, 5, 5));
+
+			List<String> reported = tickAll(shards);
+			assertEquals(1, reported.size());
+			assertEquals("0-1", reported.get(0));
+			assertTrue(shards[1].getGhosts().containsKey(0L));
+			assertTrue(shards[0].getGhosts().containsKey(1L));
+		} finally {
+			executor.shutdown();
+			transport.close();
+		}
+
+	}
+
+	@Test
+	public void entityHandedOffKeepsCollidingOnce() throws Exception {
+
+		LoopbackShardTransport transport = new LoopbackShardTransport(LAYOUT.getShardCount());
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			ShardedWorld[] shards = createShards(transport, executor);
+			// Added to the first shard, but in the last region alongside an entity owned there
+			shards[0].add(0, TestShapes.cube(30, 5, 30));
+			shards[3].add(1, TestShapes.cube(31, 5, 30));
+
+			assertReportedOnce(Collections.singleton("0-1"), tickAll(shards));
+			assertEquals(3, holderOf(shards, 0));
+			assertFalse(shards[0].getGhosts().containsKey(0L));
+			assertReportedOnce(Collections.singleton("0-1"), tickAll(shards));
+		} finally {
+			executor.shutdown();
+			transport.close();
+		}
+
+	}
+
+	@Test
+	public void ghostLeavingTheMarginIsDropped() throws Exception {
+
+		LoopbackShardTransport transport = new LoopbackShardTransport(LAYOUT.getShardCount());
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			ShardedWorld[] shards = createShards(transport, executor);
+			Entity wanderer = TestShapes.cube(19, 5, 5);
+			shards[0].add(0, wanderer);
+			// Touches the wanderer only while it is next to the border
+			shards[1].add(1, TestShapes.cube(20.75f, 5, 5));
+
+			assertEquals(1, tickAll(shards).size());
+			assertTrue(shards[1].getGhosts().containsKey(0L));
+
+			wanderer.getPosition().set(5, 5, 5);
+			assertEquals(0, tickAll(shards).size());
+			assertFalse(shards[1].getGhosts().containsKey(0L));
+
+			// Back again, so its geometry has to be sent again
+			wanderer.getPosition().set(19, 5, 5);
+			assertEquals(1, tickAll(shards).size());
+			assertTrue(shards[1].getGhosts().containsKey(0L));
+		} finally {
+			executor.shutdown();
+			transport.close();
+		}
+
+	}
+
+	@Test
+	public void movingWorldMatchesOneWorld() throws Exception {
+
+		int count = 150;
+		LoopbackShardTransport transport = new LoopbackShardTransport(LAYOUT.getShardCount());
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			ShardedWorld[] shards = createShards(transport, executor);
+			List<Entity> world = new ArrayList<Entity>();
+			for(int i = 0; i < count; i++){
+				world.add(TestShapes.cube(0, 0, 0));
+				pose(world.get(i), i, 0);
+				Entity e = TestShapes.cube(0, 0, 0);
+				pose(e, i, 0);
+				shards[0].add(i, e);
+			}
+
+			int straddling = 0;
+			int handoffs = 0;
+			int ghostsDropped = 0;
+			int[] holders = new int[count];
+			List<Set<Long>> ghosts = new ArrayList<Set<Long>>();
+			for(int tick = 0; tick < 60; tick++){
+				for(int i = 0; i < count; i++){
+					pose(world.get(i), i, tick);
+				}
+				for(ShardedWorld shard : shards){
+					for(Map.Entry<Long, Entity> entry : shard.getOwned().entrySet()){
+						pose(entry.getValue(), entry.getKey(), tick);
+					}
+				}
+
+				Set<String> expected = singleWorldPairs(world, executor);
+				assertReportedOnce(expected, tickAll(shards));
+
+				for(String pair : expected){
+					String[] ids = pair.split("-");
+					if(holderOf(shards, Long.parseLong(ids[0])) != holderOf(shards, Long.parseLong(ids[1]))){
+						straddling++;
+					}
+				}
+				for(int i = 0; i < count; i++){
+					int holder = holderOf(shards, i);
+					assertTrue(holder >= 0);
+					handoffs += tick > 0 && holder != holders[i] ? 1 : 0;
+					holders[i] = holder;
+				}
+				for(ShardedWorld shard : shards){
+					Set<Long> now = new HashSet<Long>(shard.getGhosts().keySet());
+					if(tick > 0){
+						Set<Long> gone = new HashSet<Long>(ghosts.get(shard.getShard()));
+						gone.removeAll(now);
+						ghostsDropped += gone.size();
+						ghosts.set(shard.getShard(), now);
+					} else {
+						ghosts.add(now);
+					}
+				}
+			}
+
+			// The world did cross borders, move between shards and leave margins
+			assertTrue(straddling > 0);
+			assertTrue(handoffs > 0);
+			assertTrue(ghostsDropped > 0);
+		} finally {
+			executor.shutdown();
+			transport.close();
+		}
+
+	}
+
+	@Test
+	public void shardMissingTheExchangeFailsAndRecovers() throws Exception {
+
+		LoopbackShardTransport transport = new LoopbackShardTransport(LAYOUT.getShardCount());
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		ExecutorService threads = Executors.newFixedThreadPool(LAYOUT.getShardCount());
+		try {
+			ShardedWorld[] shards = createShards(transport, executor);
+			shards[0].add(0, TestShapes.cube(19, 5, 5));
+			shards[1].add(1, TestShapes.cube(20.75f, 5, 5));
+			// Due to be handed to the last shard, which is the one that misses the exchange
+			shards[0].add(2, TestShapes.cube(30, 5, 30));
+
+			List<Future<List<long[]>>> ticks = new ArrayList<Future<List<long[]>>>();
+			for(int i = 0; i < shards.length - 1; i++){
+				ticks.add(threads.submit(shards[i]::tick));
+			}
+			// Closing the transport tells the shards waiting for the missing one to give up
+			for(Future<List<long[]>> tick : ticks){
+				for(int wait = 0; wait < 200 && !tick.isDone(); wait++){
+					Thread.sleep(10);
+					transport.close();
+				}
+			}
+			for(Future<List<long[]>> tick : ticks){
+				try {
+					tick.get();
+					fail("The exchange should fail while a shard is missing");
+				} catch (ExecutionException e) {
+					assertTrue(e.getCause() instanceof IOException);
+				}
+			}
+			// A failed exchange changes nothing, so the hand off waits for the next one
+			assertEquals(0, holderOf(shards, 2));
+
+			// The next tick every shard takes part, and nothing was lost or doubled
+			assertReportedOnce(Collections.singleton("0-1"), tickAll(shards));
+			assertEquals(3, holderOf(shards, 2));
+			int holders = 0;
+			for(ShardedWorld shard : shards){
+				holders += shard.getOwned().containsKey(2L) ? 1 : 0;
+			}
+			assertEquals(1, holders);
+		} finally {
+			threads.shutdown();
+			executor.shutdown();
+			transport.close();
+		}
+
+	}
+
+}
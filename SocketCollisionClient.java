@@ -0,0 +1,120 @@
+package com.tut.tutorial;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 
+ * A {@link CollisionClient} that talks to a {@link CollisionServer} over a loopback socket. Submitted
+ * queries are written into a buffer and sent together on {@link #flush()}. A reader thread takes
+ * results as the server sends them, in any order, and completes the matching future by id.
+ * 
+ * @author CAISBlogss
+ *
+ */
+public class SocketCollisionClient implements CollisionClient {
+	
+	private Socket socket;
+	private DataOutputStream out;
+	private DataInputStream in;
+	private AtomicInteger nextId = new AtomicInteger();
+	private Map<Integer, CompletableFuture<CollisionService.Result>> waiting = new ConcurrentHashMap<Integer, CompletableFuture<CollisionService.Result>>();
+	// Set once the connection has ended, after which nothing submitted can be answered
+	private volatile IOException lost;
+	
+	
+	/**
+	 * Connects to a server on this machine.
+	 * 
+	 * @param port
+	 * 				- The port the server is listening on, see {@link CollisionServer#getPort()}.
+	 */
+	public SocketCollisionClient(int port) throws IOException {
+		
+		socket = new Socket(InetAddress.getLoopbackAddress(), port);
+		socket.setTcpNoDelay(true);
+		out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+		
+		Thread reader = new Thread(this::readResults, "collision-client-reader");
+		reader.setDaemon(true);
+		reader.start();
+		
+	}
+	
+	
+	@Override
+	public CompletableFuture<CollisionService.Result> submit(CollisionService.Query query){
+		
+		CompletableFuture<CollisionService.Result> result = new CompletableFuture<CollisionService.Result>();
+		CollisionService.Query numbered = query.withId(nextId.getAndIncrement());
+		waiting.put(numbered.getId(), result);
+		// Checked after the put, so either this or the reader fails the query if the connection has just ended
+		if(lost != null){
+			waiting.remove(numbered.getId());
+			result.completeExceptionally(lost);
+			return result;
+		}
+		try {
+			synchronized(out){
+				numbered.write(out);
+			}
+		} catch (IOException e) {
+			waiting.remove(numbered.getId());
+			result.completeExceptionally(e);
+		}
+		return result;
+		
+	}
+	
+	
+	@Override
+	public void flush(){
+		try {
+			synchronized(out){
+				out.flush();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	
+	@Override
+	public void close() throws IOException {
+		socket.close();
+	}
+	
+	
+	private void readResults(){
+		
+		try {
+			while(true){
+				CollisionService.Result result = CollisionService.Result.read(in);
+				CompletableFuture<CollisionService.Result> future = waiting.remove(result.getId());
+				if(future != null){
+					future.complete(result);
+				}
+			}
+		} catch (IOException e) {
+			// The connection is gone, nothing still waiting will ever be answered
+			lost = e;
+			for(CompletableFuture<CollisionService.Result> future : waiting.values()){
+				future.completeExceptionally(e);
+			}
+			waiting.clear();
+		}
+		
+	}
+	
+}
@@ -0,0 +1,57 @@
+package com.tut.tutorial;
+
+import com.tut.prerequesits.Vector3f;
+
+/**
+ * 
+ * Models shared by the tests, and entities built from them.
+ * 
+ * @author CAISBlogss
+ *
+ */
+public class TestShapes {
+
+	/** A cube of half width 1 around the origin */
+	static final float[] CUBE = new float[]{-1, -1, -1, 1, -1, -1, -1, 1, -1, 1, 1, -1, -1, -1, 1, 1, -1, 1, -1, 1, 1, 1, 1, 1};
+	static final float[] CUBE_NORMALS = new float[]{1, 0, 0, 0, 1, 0, 0, 0, 1};
+	static final int[] CUBE_INDICES = new int[]{0, 2, 1, 1, 2, 3, 4, 5, 6, 5, 7, 6, 0, 1, 4, 1, 5, 4, 2, 6, 3, 3, 6, 7, 0, 4, 2, 2, 4, 6, 1, 3, 5, 3, 7, 5};
+	
+	/** A flat square of half width 1 in the xz plane, facing up */
+	static final float[] QUAD = new float[]{-1, 0, -1, 1, 0, -1, -1, 0, 1, 1, 0, 1};
+	static final float[] QUAD_NORMALS = new float[]{0, 1, 0};
+	static final int[] QUAD_INDICES = new int[]{0, 2, 1, 1, 2, 3};
+	
+	
+	/**
+	 * @return
+	 * 			- An unrotated cube of half width 1 centred on the given position.
+	 */
+	static Entity cube(float x, float y, float z){
+		return cube(x, y, z, 0, 0, 0, 1);
+	}
+	
+	/**
+	 * @return
+	 * 			- An unrotated cube of half width scale centred on the given position.
+	 */
+	static Entity cube(float x, float y, float z, float scale){
+		return cube(x, y, z, 0, 0, 0, scale);
+	}
+	
+	/**
+	 * @return
+	 * 			- A cube of half width scale centred on the given position, rotated by the given angles in degrees.
+	 */
+	static Entity cube(float x, float y, float z, float rotX, float rotY, float rotZ, float scale){
+		return new Entity(new Vector3f(x, y, z), rotX, rotY, rotZ, scale, CUBE, CUBE_NORMALS, CUBE_INDICES);
+	}
+	
+	/**
+	 * @return
+	 * 			- An unrotated flat square of half width 1 centred on the given position.
+	 */
+	static Entity quad(float x, float y, float z){
+		return new Entity(new Vector3f(x, y, z), 0, 0, 0, 1, QUAD, QUAD_NORMALS, QUAD_INDICES);
+	}
+	
+}
@@ -0,0 +1,141 @@
+package com.tut.tutorial;
+
+import java.util.List;
+
+import com.tut.prerequesits.Vector3f;
+
+/**
+ * 
+ * Builds the transformation matrices of many entities once per tick and keeps them in one flat
+ * array, 16 floats per entity in the order used by {@link Maths#composeTransformation}. Each
+ * detector asks for an entity's matrix several times per pair and an entity is in many pairs, so
+ * building every matrix once and reading it back saves most of that work.
+ * 
+ * Only entities whose position, rotation or scale changed since the last update are rebuilt. The
+ * pose each matrix was built from is kept, so {@link Maths#loadTransformation(Entity, double[], float[], int)}
+ * can tell when an entity has moved since the update and build the matrix itself instead of using a stale one.
+ * 
+ * @author CAISBlogss
+ *
+ */
+public class TransformBatch {
+	
+	private static final int POSE = 7;
+	
+	private float[] matrices = new float[0];
+	private float[] poses = new float[0];
+	private Entity[] entities = new Entity[0];
+	private int rebuilt;
+	
+	
+	/**
+	 * Brings the batch up to date with the given entities. Each entity is bound to the slot matching its index in the list.
+	 * Should be called once per tick, before any detection.
+	 * 
+	 * @param scene
+	 * 				- The entities whose matrices should be held.
+	 */
+	public void update(List<Entity> scene){
+		
+		int count = scene.size();
+		if(entities.length != count){
+			resize(count);
+		}
+		
+		rebuilt = 0;
+		for(int i = 0; i < count; i++){
+			Entity e = scene.get(i);
+			if(entities[i] != e){
+				unbind(entities[i], i);
+				entities[i] = e;
+				e.setTransformSlot(this, i);
+				build(e, i);
+			} else if(!isCurrent(e)){
+				build(e, i);
+			}
+		}
+		
+	}
+	
+	
+	/**
+	 * @return
+	 * 				- Every matrix held, 16 floats per slot. Must not be changed.
+	 */
+	public float[] getMatrices(){
+		return matrices;
+	}
+	
+	
+	/**
+	 * @return
+	 * 				- The number of matrices built in the last update, the rest were unchanged.
+	 */
+	public int getRebuiltCount(){
+		return rebuilt;
+	}
+	
+	
+	/**
+	 * @return
+	 * 				- true if the entity is held by this batch and has not moved since its matrix was built.
+	 */
+	public boolean isCurrent(Entity e){
+		
+		int slot = e.getTransformSlot();
+		if(e.getTransformBatch() != this || slot >= entities.length || entities[slot] != e){
+			return false;
+		}
+		Vector3f position = e.getPosition();
+		int root = POSE * slot;
+		return poses[root] == position.x && poses[root + 1] == position.y && poses[root + 2] == position.z
+				&& poses[root + 3] == e.getRotX() && poses[root + 4] == e.getRotY() && poses[root + 5] == e.getRotZ()
+				&& poses[root + 6] == e.getScale();
+		
+	}
+	
+	
+	private void build(Entity e, int slot){
+		
+		Vector3f position = e.getPosition();
+		int root = POSE * slot;
+		poses[root] = position.x;
+		poses[root + 1] = position.y;
+		poses[root + 2] = position.z;
+		poses[root + 3] = e.getRotX();
+		poses[root + 4] = e.getRotY();
+		poses[root + 5] = e.getRotZ();
+		poses[root + 6] = e.getScale();
+		Maths.composeTransformation(position.x, position.y, position.z, e.getRotX(), e.getRotY(), e.getRotZ(), e.getScale(), matrices, 16 * slot);
+		rebuilt++;
+		
+	}
+	
+	
+	private void resize(int count){
+		
+		for(int i = count; i < entities.length; i++){
+			unbind(entities[i], i);
+		}
+		
+		float[] newMatrices = new float[16 * count];
+		float[] newPoses = new float[POSE * count];
+		Entity[] newEntities = new Entity[count];
+		int kept = Math.min(count, entities.length);
+		System.arraycopy(matrices, 0, newMatrices, 0, 16 * kept);
+		System.arraycopy(poses, 0, newPoses, 0, POSE * kept);
+		System.arraycopy(entities, 0, newEntities, 0, kept);
+		matrices = newMatrices;
+		poses = newPoses;
+		entities = newEntities;
+		
+	}
+	
+	
+	private void unbind(Entity e, int slot){
+		if(e != null && e.getTransformBatch() == this && e.getTransformSlot() == slot){
+			e.setTransformSlot(null, 0);
+		}
+	}
+	
+}
@@ -0,0 +1,164 @@
+package com.tut.tutorial;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.tut.prerequesits.Matrix4f;
+import com.tut.prerequesits.Vector3f;
+
+public class TransformBatchTest {
+
+	private static final float EPSILON = 1e-3f;
+
+
+	/**
+	 * The transformation as it was built before it was multiplied out, one Matrix4f operation at a time.
+	 */
+	private static Matrix4f rotatedStepByStep(Entity e){
+
+		Matrix4f matrix = new Matrix4f();
+		matrix.setIdentity();
+		Matrix4f.translate(e.getPosition(), matrix, matrix);
+		Matrix4f.rotate((float) Math.toRadians(e.getRotX()), new Vector3f(1, 0, 0), matrix, matrix);
+		Matrix4f.rotate((float) Math.toRadians(e.getRotY()), new Vector3f(0, 1, 0), matrix, matrix);
+		Matrix4f.rotate((float) Math.toRadians(e.getRotZ()), new Vector3f(0, 0, 1), matrix, matrix);
+		Matrix4f.scale(new Vector3f(e.getScale(), e.getScale(), e.getScale()), matrix, matrix);
+		return matrix;
+
+	}
+
+	private static void assertMatrixEquals(Matrix4f expected, float[] actual, int offset){
+
+		float[] columns = new float[]{
+				expected.m00, expected.m01, expected.m02, expected.m03,
+				expected.m10, expected.m11, expected.m12, expected.m13,
+				expected.m20, expected.m21, expected.m22, expected.m23,
+				expected.m30, expected.m31, expected.m32, expected.m33};
+		for(int i = 0; i < 16; i++){
+			assertEquals(columns[i], actual[offset + i], EPSILON);
+		}
+
+	}
+
+	private static Entity randomEntity(Random random){
+
+		return TestShapes.cube((random.nextFloat() - 0.5f) * 200, (random.nextFloat() - 0.5f) * 200, (random.nextFloat() - 0.5f) * 200,
+				(random.nextFloat() - 0.5f) * 720, (random.nextFloat() - 0.5f) * 720, (random.nextFloat() - 0.5f) * 720, 0.1f + (random.nextFloat() * 5));
+
+	}
+
+	/**
+	 * Checks the matrix read for the entity is the one for where it is now.
+	 */
+	private static void assertLoadsCurrentPose(Entity e){
+
+		float[] loaded = new float[16];
+		Maths.loadTransformation(e, Maths.worldOrigin(), loaded, 0);
+		assertMatrixEquals(rotatedStepByStep(e), loaded, 0);
+
+	}
+
+
+	@Test
+	public void composedTransformationMatchesRotatingStepByStep() {
+
+		Random random = new Random(34);
+		float[] composed = new float[32];
+		for(int i = 0; i < 1000; i++){
+			Entity e = randomEntity(random);
+			Vector3f position = e.getPosition();
+			Maths.composeTransformation(position.x, position.y, position.z, e.getRotX(), e.getRotY(), e.getRotZ(), e.getScale(), composed, 16);
+			assertMatrixEquals(rotatedStepByStep(e), composed, 16);
+		}
+
+	}
+
+	@Test
+	public void entityMovedAfterUpdateIsNotReadFromTheBatch() {
+
+		Random random = new Random(34);
+		List<Entity> scene = new ArrayList<Entity>();
+		for(int i = 0; i < 10; i++){
+			scene.add(randomEntity(random));
+		}
+		TransformBatch batch = new TransformBatch();
+		batch.update(scene);
+		assertEquals(10, batch.getRebuiltCount());
+
+		Entity moved = scene.get(3);
+		moved.getPosition().set(moved.getPosition().x + 1, moved.getPosition().y, moved.getPosition().z);
+		moved.setRotY(moved.getRotY() + 30);
+		assertFalse(batch.isCurrent(moved));
+		assertLoadsCurrentPose(moved);
+
+		batch.update(scene);
+		assertEquals(1, batch.getRebuiltCount());
+		assertTrue(batch.isCurrent(moved));
+		assertLoadsCurrentPose(moved);
+
+	}
+
+	@Test
+	public void swappedEntitiesReadTheirOwnMatrices() {
+
+		Random random = new Random(34);
+		Entity first = randomEntity(random);
+		Entity second = randomEntity(random);
+		List<Entity> scene = new ArrayList<Entity>();
+		scene.add(first);
+		scene.add(second);
+		TransformBatch batch = new TransformBatch();
+		batch.update(scene);
+
+		scene.set(0, second);
+		scene.set(1, first);
+		// Before the update each entity still points at its old slot, which now belongs to the other
+		assertLoadsCurrentPose(first);
+		assertLoadsCurrentPose(second);
+
+		batch.update(scene);
+		assertEquals(1, first.getTransformSlot());
+		assertEquals(0, second.getTransformSlot());
+		assertTrue(batch.isCurrent(first));
+		assertTrue(batch.isCurrent(second));
+		assertLoadsCurrentPose(first);
+		assertLoadsCurrentPose(second);
+
+	}
+
+	@Test
+	public void removedEntityIsNotReadFromTheBatch() {
+
+		Random random = new Random(34);
+		List<Entity> scene = new ArrayList<Entity>();
+		for(int i = 0; i < 3; i++){
+			scene.add(randomEntity(random));
+		}
+		TransformBatch batch = new TransformBatch();
+		batch.update(scene);
+
+		Entity removed = scene.remove(2);
+		batch.update(scene);
+		assertTrue(removed.getTransformBatch() == null);
+		assertFalse(batch.isCurrent(removed));
+
+		removed.setRotX(removed.getRotX() + 45);
+		assertLoadsCurrentPose(removed);
+
+		// Its old slot is taken by a new entity, which the removed one must not read
+		scene.add(randomEntity(random));
+		batch.update(scene);
+		assertFalse(batch.isCurrent(removed));
+		assertLoadsCurrentPose(removed);
+		assertLoadsCurrentPose(scene.get(2));
+
+	}
+
+}